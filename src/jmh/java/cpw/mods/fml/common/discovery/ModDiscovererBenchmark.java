@@ -0,0 +1,152 @@
+package cpw.mods.fml.common.discovery;
+
+import com.google.common.collect.Lists;
+import cpw.mods.fml.common.ModContainer;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Startup cost of scanning a synthetic mods directory of {@code jars} jars, each holding
+ * {@code classes} generated classes of which one in twenty carries a runtime annotation.
+ * Candidates are explored on a pool of {@code threads} workers and merged in candidate
+ * order, the way ModDiscoverer.identifyMods does it; one thread is the sequential scan.
+ * identifyMods itself is not called, since it opens the discovery cache under the game
+ * directory, so no cache is in use here and every jar is read and parsed on every pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ModDiscovererBenchmark {
+    @Param({"200", "500"})
+    public int jars;
+
+    @Param({"150"})
+    public int classes;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private File modsDir;
+
+    @Setup
+    public void setup() throws IOException {
+        this.modsDir = File.createTempFile("mods", "");
+        this.modsDir.delete();
+        this.modsDir.mkdirs();
+        for (int i = 0; i < this.jars; i++) {
+            ZipOutputStream jar = new ZipOutputStream(new FileOutputStream(new File(this.modsDir, String.format("mod%03d.jar", i))));
+            try {
+                for (int j = 0; j < this.classes; j++) {
+                    String name = String.format("mod%03d/Class%03d", i, j);
+                    jar.putNextEntry(new ZipEntry(name + ".class"));
+                    jar.write(generateClass(name, j % 20 == 0));
+                    jar.closeEntry();
+                }
+            } finally {
+                jar.close();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (File file : this.modsDir.listFiles()) {
+            file.delete();
+        }
+        this.modsDir.delete();
+    }
+
+    @Benchmark
+    public List<ModContainer> identifyMods() throws Exception {
+        // As ModDiscoverer.findModDirMods lists them
+        File[] modList = this.modsDir.listFiles();
+        Arrays.sort(modList);
+        List<ModCandidate> candidates = Lists.newArrayListWithCapacity(modList.length);
+        for (File modFile : modList) {
+            candidates.add(new ModCandidate(modFile, modFile, ContainerType.JAR));
+        }
+
+        List<Future<List<ModContainer>>> results = Lists.newArrayListWithCapacity(candidates.size());
+        List<ASMDataTable> tables = Lists.newArrayListWithCapacity(candidates.size());
+        ForkJoinPool pool = new ForkJoinPool(this.threads);
+        try {
+            for (final ModCandidate candidate : candidates) {
+                final ASMDataTable table = new ASMDataTable();
+                tables.add(table);
+                results.add(pool.submit(new Callable<List<ModContainer>>() {
+                    public List<ModContainer> call() {
+                        return candidate.explore(table);
+                    }
+                }));
+            }
+
+            ASMDataTable dataTable = new ASMDataTable();
+            List<ModContainer> mods = Lists.newArrayList();
+            for (int i = 0; i < candidates.size(); i++) {
+                mods.addAll(results.get(i).get());
+                dataTable.merge(tables.get(i));
+            }
+            return mods;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static byte[] generateClass(String name, boolean annotated) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        if (annotated) {
+            cw.visitAnnotation("Ljava/lang/Deprecated;", true).visitEnd();
+        }
+        for (int i = 0; i < 4; i++) {
+            cw.visitField(Opcodes.ACC_PRIVATE, "field" + i, "I", null, null).visitEnd();
+        }
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        for (int i = 0; i < 8; i++) {
+            mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "method" + i, "(I)I", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ILOAD, 1);
+            mv.visitLdcInsn(i);
+            mv.visitInsn(Opcodes.IADD);
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+}
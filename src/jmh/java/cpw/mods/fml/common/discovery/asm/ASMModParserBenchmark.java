@@ -0,0 +1,88 @@
+package cpw.mods.fml.common.discovery.asm;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Discovery throughput, in classes per second, of the constant pool prefilter in
+ * {@link ASMModParser#parse} against the full visit every class used to get. Each operation
+ * parses the next class of {@code jar}, which defaults to the Guava jar on the classpath: a
+ * large jar where, like most of a mod jar, almost no class is annotated. The class bytes are
+ * read up front so the zip inflation JarDiscoverer also pays is left out of both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ASMModParserBenchmark {
+    @Param({""})
+    public String jar;
+
+    private byte[][] classes;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        File file = this.jar.isEmpty()
+                ? new File(Preconditions.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                : new File(this.jar);
+        List<byte[]> read = new ArrayList<byte[]>();
+        ZipFile zip = new ZipFile(file);
+        try {
+            for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); ) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.getName().endsWith(".class")) {
+                    InputStream stream = zip.getInputStream(entry);
+                    try {
+                        read.add(ByteStreams.toByteArray(stream));
+                    } finally {
+                        stream.close();
+                    }
+                }
+            }
+        } finally {
+            zip.close();
+        }
+        this.classes = read.toArray(new byte[read.size()][]);
+    }
+
+    @Benchmark
+    public ASMModParser prefiltered() throws IOException {
+        return ASMModParser.parse(this.nextClass());
+    }
+
+    @Benchmark
+    public ASMModParser fullVisit() throws IOException {
+        return new ASMModParser(this.nextClass());
+    }
+
+    private InputStream nextClass() {
+        byte[] bytes = this.classes[this.next];
+        this.next = (this.next + 1) % this.classes.length;
+        return new ByteArrayInputStream(bytes);
+    }
+}
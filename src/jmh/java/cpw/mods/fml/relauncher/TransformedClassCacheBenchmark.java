@@ -0,0 +1,172 @@
+package cpw.mods.fml.relauncher;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.tree.ClassNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * What the transformed class cache saves when loading classes, per load of every class in the
+ * Guava jar (about as many classes as a modded server transforms on startup). Each transformer
+ * is an ASM read/write round trip, the shape of FML's access and side transformers.
+ * <ul>
+ * <li>uncached: every class goes through the transformers, as with the cache disabled</li>
+ * <li>cold: an empty cache, so every class is hashed, transformed and written out (first start)</li>
+ * <li>warm: every class is hashed and read back from the cache (later starts)</li>
+ * </ul>
+ * Defining the classes costs the same either way and is left out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TransformedClassCacheBenchmark {
+    @Param({"1", "4"})
+    public int transformers;
+
+    private final List<String> names = new ArrayList<String>();
+    private final List<byte[]> classes = new ArrayList<byte[]>();
+    private final List<IClassTransformer> chain = new ArrayList<IClassTransformer>();
+    private File warmRoot;
+    private TransformedClassCache warmCache;
+    private File coldRoot;
+    private TransformedClassCache coldCache;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        JarFile jar = new JarFile(new File(ImmutableList.class.getProtectionDomain().getCodeSource().getLocation().getPath()));
+        try {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (entry.getName().endsWith(".class")) {
+                    InputStream in = jar.getInputStream(entry);
+                    try {
+                        this.classes.add(ByteStreams.toByteArray(in));
+                    } finally {
+                        in.close();
+                    }
+                    this.names.add(entry.getName().substring(0, entry.getName().length() - 6).replace('/', '.'));
+                }
+            }
+        } finally {
+            jar.close();
+        }
+
+        for (int i = 0; i < this.transformers; i++) {
+            this.chain.add(new TransformedClassCacheBenchmark.RoundTrip());
+        }
+
+        this.warmRoot = Files.createTempDir();
+        this.warmCache = new TransformedClassCache(this.warmRoot);
+        this.warmCache.setTransformers(this.chain);
+        for (int i = 0; i < this.classes.size(); i++) {
+            this.warmCache.put(this.warmCache.key(this.classes.get(i)), this.transform(this.names.get(i), this.classes.get(i)));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyColdCache() {
+        this.coldRoot = Files.createTempDir();
+        this.coldCache = new TransformedClassCache(this.coldRoot);
+        this.coldCache.setTransformers(this.chain);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteColdCache() throws IOException {
+        delete(this.coldRoot);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWarmCache() throws IOException {
+        delete(this.warmRoot);
+    }
+
+    @Benchmark
+    public void uncached(Blackhole blackhole) {
+        for (int i = 0; i < this.classes.size(); i++) {
+            blackhole.consume(this.transform(this.names.get(i), this.classes.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void cold(Blackhole blackhole) {
+        this.load(this.coldCache, blackhole);
+    }
+
+    @Benchmark
+    public void warm(Blackhole blackhole) {
+        this.load(this.warmCache, blackhole);
+    }
+
+    // Same steps as RelaunchClassLoader.runTransformers
+    private void load(TransformedClassCache cache, Blackhole blackhole) {
+        for (int i = 0; i < this.classes.size(); i++) {
+            byte[] basicClass = this.classes.get(i);
+            String key = cache.key(basicClass);
+            byte[] transformed = cache.get(key);
+            if (transformed == null) {
+                transformed = this.transform(this.names.get(i), basicClass);
+                cache.put(key, transformed);
+            }
+            blackhole.consume(transformed);
+        }
+    }
+
+    private byte[] transform(String name, byte[] basicClass) {
+        for (IClassTransformer transformer : this.chain) {
+            basicClass = transformer.transform(name, basicClass);
+        }
+        return basicClass;
+    }
+
+    private static void delete(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        if (!file.delete()) {
+            throw new IOException("Unable to delete " + file);
+        }
+    }
+
+    private static class RoundTrip implements IClassTransformer {
+        public byte[] transform(String name, byte[] bytes) {
+            ClassNode node = new ClassNode();
+            new ClassReader(bytes).accept(node, 0);
+            ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            node.accept(writer);
+            return writer.toByteArray();
+        }
+    }
+}
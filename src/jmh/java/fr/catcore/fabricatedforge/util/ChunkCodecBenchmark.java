@@ -0,0 +1,155 @@
+package fr.catcore.fabricatedforge.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the chunk codecs on a set of chunks, by default synthetic ones shaped like saved chunk NBT:
+ * long zero runs for air and untouched light, short repeated runs for terrain and a little noise.
+ * To use the chunks of an existing world instead, pass its directory (or a dimension's, like DIM-1):
+ * <pre>
+ * java -jar build/libs/&lt;name&gt;-jmh.jar ChunkCodecBenchmark -p world=saves/world
+ * </pre>
+ * The sizes each codec ends up with are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChunkCodecBenchmark {
+    @Param({"deflate", "deflate:1", "deflate:6", "deflate:9", "fast", "none"})
+    public String codec;
+
+    @Param({""})
+    public String world;
+
+    private ChunkCodec chunkCodec;
+    private List<byte[]> chunks;
+    private List<byte[]> compressed;
+
+    @Setup
+    public void setup() throws IOException {
+        this.chunkCodec = ChunkCodec.byName(this.codec);
+        this.chunks = this.world.isEmpty() ? syntheticChunks(256) : loadChunks(new File(new File(this.world), "region"));
+        if (this.chunks.isEmpty()) {
+            throw new IllegalStateException("No chunks found in " + this.world);
+        }
+
+        this.compressed = new ArrayList<byte[]>(this.chunks.size());
+        long total = 0L;
+        long size = 0L;
+        for (byte[] chunk : this.chunks) {
+            byte[] data = this.chunkCodec.compress(chunk, chunk.length);
+            this.compressed.add(data);
+            total += chunk.length;
+            size += data.length;
+        }
+        System.out.println(String.format("%s: %d chunks, %.2f MB of NBT to %.2f MB, ratio %.3f", this.codec, this.chunks.size(),
+                total / 1048576.0D, size / 1048576.0D, (double)size / total));
+    }
+
+    @Benchmark
+    public void compress(Blackhole blackhole) throws IOException {
+        for (byte[] chunk : this.chunks) {
+            blackhole.consume(this.chunkCodec.compress(chunk, chunk.length));
+        }
+    }
+
+    @Benchmark
+    public void decompress(Blackhole blackhole) throws IOException {
+        for (byte[] data : this.compressed) {
+            blackhole.consume(drain(this.chunkCodec.decompress(data)));
+        }
+    }
+
+    private static List<byte[]> syntheticChunks(int count) {
+        Random random = new Random(23L);
+        List<byte[]> chunks = new ArrayList<byte[]>(count);
+        for (int i = 0; i < count; i++) {
+            // Eight sections of blocks, data and both light arrays, about what a surface chunk saves
+            byte[] chunk = new byte[8 * (4096 + 3 * 2048)];
+            int pos = 0;
+            while (pos < chunk.length) {
+                int run = 1 + random.nextInt(random.nextInt(8) == 0 ? 512 : 24);
+                int kind = random.nextInt(10);
+                byte value = kind < 5 ? 0 : kind < 9 ? (byte)(1 + random.nextInt(4)) : (byte)random.nextInt(256);
+                for (int end = Math.min(pos + run, chunk.length); pos < end; pos++) {
+                    chunk[pos] = kind == 9 ? (byte)random.nextInt(256) : value;
+                }
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static List<byte[]> loadChunks(File regionDir) throws IOException {
+        List<byte[]> chunks = new ArrayList<byte[]>();
+        File[] files = regionDir.listFiles();
+        if (files == null) {
+            return chunks;
+        }
+
+        for (File file : files) {
+            if (!file.getName().endsWith(".mca")) {
+                continue;
+            }
+
+            // Benchmarking shouldn't touch the world, so read a copy of each region file
+            File copy = File.createTempFile("region", ".mca");
+            try {
+                Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                MappedRegionFile region = new MappedRegionFile(copy);
+                try {
+                    for (int z = 0; z < 32; z++) {
+                        for (int x = 0; x < 32; x++) {
+                            MappedRegionFile.Payload payload = region.read(x, z);
+                            ChunkCodec codec = payload == null ? null : ChunkCodec.forVersion(payload.version);
+                            if (codec != null) {
+                                chunks.add(drain(codec.decompress(payload.data)));
+                            }
+                        }
+                    }
+                } finally {
+                    region.close();
+                }
+            } finally {
+                copy.delete();
+            }
+        }
+        return chunks;
+    }
+
+    private static byte[] drain(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(65536);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,124 @@
+package fr.catcore.fabricatedforge.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the spawn cap checks of one spawn pass, one count per entity category, through
+ * the running counts of EntityClassCounter against the scan of the loaded entity list they
+ * replaced. Each pass also despawns one entity and spawns another, so the counted variant
+ * pays for keeping its counts up to date.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EntityClassCounterBenchmark {
+    private static final Class<?>[] CATEGORIES = {Monster.class, Animal.class, WaterCreature.class};
+
+    @Param({"1000", "5000", "20000"})
+    public int entities;
+
+    private final Random random = new Random(12L);
+    private List<Object> loaded;
+    private EntityClassCounter counter;
+
+    @Setup
+    public void setup() {
+        this.loaded = new ArrayList<Object>(this.entities);
+        this.counter = new EntityClassCounter();
+        for (int i = 0; i < this.entities; i++) {
+            Object entity = this.newEntity();
+            this.loaded.add(entity);
+            this.counter.add(entity);
+        }
+        for (Class<?> category : CATEGORIES) {
+            this.counter.get(category, this.loaded);
+        }
+    }
+
+    @Benchmark
+    public int counted() {
+        int index = this.random.nextInt(this.loaded.size());
+        this.counter.remove(this.loaded.get(index));
+        Object entity = this.newEntity();
+        this.loaded.set(index, entity);
+        this.counter.add(entity);
+
+        int total = 0;
+        for (Class<?> category : CATEGORIES) {
+            total += this.counter.get(category, this.loaded);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int scan() {
+        this.loaded.set(this.random.nextInt(this.loaded.size()), this.newEntity());
+
+        int total = 0;
+        for (Class<?> category : CATEGORIES) {
+            for (Object entity : this.loaded) {
+                if (category.isAssignableFrom(entity.getClass())) {
+                    ++total;
+                }
+            }
+        }
+        return total;
+    }
+
+    private Object newEntity() {
+        switch (this.random.nextInt(6)) {
+            case 0:
+                return new Zombie();
+            case 1:
+                return new Cow();
+            case 2:
+                return new Squid();
+            case 3:
+                return new Player();
+            default:
+                return new Item();
+        }
+    }
+
+    private static class Monster {
+    }
+
+    private static class Zombie extends Monster {
+    }
+
+    private static class Animal {
+    }
+
+    private static class Cow extends Animal {
+    }
+
+    private static class WaterCreature {
+    }
+
+    private static class Squid extends WaterCreature {
+    }
+
+    private static class Player {
+    }
+
+    private static class Item {
+    }
+}
@@ -0,0 +1,90 @@
+package fr.catcore.fabricatedforge.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a class-filtered query on one chunk section, as Chunk.method_3886 runs it for item
+ * merging or mob pushing: through the class index against the linear scan it replaced. Only
+ * {@code matches} of the section's {@code entities} are of the queried class, so the scan follows
+ * the section's density while the index should follow the result size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EntityClassIndexBenchmark {
+    @Param({"100", "1000", "5000"})
+    public int entities;
+
+    @Param({"1", "10", "100"})
+    public int matches;
+
+    private EntityClassIndex.Section section;
+    private EntityClassIndex<Object> index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(11L);
+        List<Object> contents = new ArrayList<Object>(this.entities);
+        for (int i = 0; i < this.entities; i++) {
+            contents.add(i < this.matches ? new Item() : random.nextBoolean() ? new Zombie() : new Cow());
+        }
+        Collections.shuffle(contents, random);
+
+        this.section = new EntityClassIndex.Section();
+        this.index = new EntityClassIndex<Object>();
+        for (Object entity : contents) {
+            this.section.add(entity);
+            this.index.add(entity, this.section);
+        }
+        // Built by the first query; after that the index is kept up to date by add and remove
+        this.index.get(Item.class, this.section);
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        for (Object entity : this.section) {
+            if (Item.class.isAssignableFrom(entity.getClass())) {
+                blackhole.consume(entity);
+            }
+        }
+    }
+
+    @Benchmark
+    public void indexed(Blackhole blackhole) {
+        for (Object entity : this.index.get(Item.class, this.section)) {
+            blackhole.consume(entity);
+        }
+    }
+
+    private static class Mob {
+    }
+
+    private static class Zombie extends Mob {
+    }
+
+    private static class Cow extends Mob {
+    }
+
+    private static class Item {
+    }
+}
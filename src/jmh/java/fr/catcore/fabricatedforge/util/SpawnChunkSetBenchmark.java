@@ -0,0 +1,134 @@
+package fr.catcore.fabricatedforge.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building and walking the spawn-eligible chunks of one spawn pass, as
+ * MobSpawnerHelper.method_3796 does: the 17x17 chunks around every player, shuffled and
+ * walked once per entity category. SpawnChunkSet is compared with the HashMap of chunk
+ * positions and the list copied from its keys that it replaced. Run with {@code -prof gc}
+ * to see the allocation per pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SpawnChunkSetBenchmark {
+    private static final int RADIUS = 8;
+    private static final int CATEGORIES = 3;
+
+    @Param({"50", "100", "200"})
+    public int players;
+
+    private int[] playerX;
+    private int[] playerZ;
+    private final SpawnChunkSet set = new SpawnChunkSet();
+    private final HashMap<Pos, Boolean> map = new HashMap<Pos, Boolean>();
+    private final Random random = new Random(13L);
+
+    @Setup
+    public void setup() {
+        // Players spread over a few hundred chunks, so their areas partly overlap
+        Random spread = new Random(this.players);
+        this.playerX = new int[this.players];
+        this.playerZ = new int[this.players];
+        for (int i = 0; i < this.players; i++) {
+            this.playerX[i] = spread.nextInt(200) - 100;
+            this.playerZ[i] = spread.nextInt(200) - 100;
+        }
+    }
+
+    @Benchmark
+    public void chunkSet(Blackhole blackhole) {
+        this.set.clear();
+        for (int i = 0; i < this.players; i++) {
+            for (int x = -RADIUS; x <= RADIUS; x++) {
+                for (int z = -RADIUS; z <= RADIUS; z++) {
+                    boolean edge = x == -RADIUS || x == RADIUS || z == -RADIUS || z == RADIUS;
+                    this.set.add(this.playerX[i] + x, this.playerZ[i] + z, edge);
+                }
+            }
+        }
+
+        for (int category = 0; category < CATEGORIES; category++) {
+            this.set.shuffle();
+            for (int i = 0; i < this.set.size(); i++) {
+                if (!this.set.isEdge(i)) {
+                    blackhole.consume(this.set.getX(i));
+                    blackhole.consume(this.set.getZ(i));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void hashMap(Blackhole blackhole) {
+        this.map.clear();
+        for (int i = 0; i < this.players; i++) {
+            for (int x = -RADIUS; x <= RADIUS; x++) {
+                for (int z = -RADIUS; z <= RADIUS; z++) {
+                    boolean edge = x == -RADIUS || x == RADIUS || z == -RADIUS || z == RADIUS;
+                    Pos pos = new Pos(this.playerX[i] + x, this.playerZ[i] + z);
+                    if (!edge) {
+                        this.map.put(pos, false);
+                    } else if (!this.map.containsKey(pos)) {
+                        this.map.put(pos, true);
+                    }
+                }
+            }
+        }
+
+        for (int category = 0; category < CATEGORIES; category++) {
+            List<Pos> chunks = new ArrayList<Pos>(this.map.keySet());
+            Collections.shuffle(chunks, this.random);
+            for (Pos pos : chunks) {
+                if (!this.map.get(pos)) {
+                    blackhole.consume(pos.x);
+                    blackhole.consume(pos.z);
+                }
+            }
+        }
+    }
+
+    // Stands in for ChunkPos, hashed the same way
+    private static class Pos {
+        private final int x;
+        private final int z;
+
+        private Pos(int x, int z) {
+            this.x = x;
+            this.z = z;
+        }
+
+        @Override
+        public int hashCode() {
+            long key = (long)this.x & 0xFFFFFFFFL | ((long)this.z & 0xFFFFFFFFL) << 32;
+            return (int)key ^ (int)(key >> 32);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Pos && ((Pos)o).x == this.x && ((Pos)o).z == this.z;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package net.minecraftforge.event;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of calling and of registering an event handler. Calls go through the generated ASM
+ * wrapper, a direct call, Method.invoke and a LambdaMetafactory-bound listener. Registration
+ * is an ASMEventHandler for a new subscriber instance, which reuses its method's wrapper,
+ * against spinning a bound lambda for it, which defines a class every time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ASMEventHandlerBenchmark {
+    private static final MethodType LISTENER_TYPE = MethodType.methodType(void.class, Event.class);
+
+    private final Handler target = new Handler();
+    private final Event event = new Event();
+    private Method method;
+    private MethodHandle implementation;
+    private ASMEventHandler asm;
+    private IEventListener lambda;
+
+    @Setup
+    public void setup() throws Throwable {
+        this.method = Handler.class.getMethod("onEvent", Event.class);
+        this.implementation = MethodHandles.lookup().unreflect(this.method);
+        this.asm = new ASMEventHandler(this.target, this.method);
+        this.lambda = this.bindLambda(this.target);
+    }
+
+    @Benchmark
+    public int invokeDirect() {
+        this.target.onEvent(this.event);
+        return this.target.calls;
+    }
+
+    @Benchmark
+    public int invokeAsm() {
+        this.asm.invoke(this.event);
+        return this.target.calls;
+    }
+
+    @Benchmark
+    public int invokeReflective() throws Exception {
+        this.method.invoke(this.target, this.event);
+        return this.target.calls;
+    }
+
+    @Benchmark
+    public int invokeLambda() {
+        this.lambda.invoke(this.event);
+        return this.target.calls;
+    }
+
+    @Benchmark
+    public ASMEventHandler registerAsm() throws Exception {
+        return new ASMEventHandler(new Handler(), this.method);
+    }
+
+    @Benchmark
+    public IEventListener registerLambda() throws Throwable {
+        return this.bindLambda(new Handler());
+    }
+
+    private IEventListener bindLambda(Handler handler) throws Throwable {
+        CallSite site = LambdaMetafactory.metafactory(MethodHandles.lookup(), "invoke",
+                MethodType.methodType(IEventListener.class, Handler.class), LISTENER_TYPE,
+                this.implementation, LISTENER_TYPE);
+        return (IEventListener)site.getTarget().invoke(handler);
+    }
+
+    public static class Handler {
+        public int calls;
+
+        @ForgeSubscribe
+        public void onEvent(Event event) {
+            this.calls++;
+        }
+    }
+}
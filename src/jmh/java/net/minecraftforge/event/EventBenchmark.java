@@ -0,0 +1,76 @@
+package net.minecraftforge.event;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of constructing an event, with cancelability looked up once per class, against the
+ * superclass walk every constructor used to make. The events are three levels below Event,
+ * like EntityEvent.CanUpdate or ChunkEvent.Load, with the annotation on the top level only so
+ * the walk has to go all the way up for both outcomes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EventBenchmark {
+    @Benchmark
+    public Event cancelable() {
+        return new CancelableLeaf();
+    }
+
+    @Benchmark
+    public Event plain() {
+        return new PlainLeaf();
+    }
+
+    @Benchmark
+    public boolean cancelableReflective() {
+        return isCancelable(new CancelableLeaf());
+    }
+
+    @Benchmark
+    public boolean plainReflective() {
+        return isCancelable(new PlainLeaf());
+    }
+
+    // What the Event constructor did before the lookup was cached
+    private static boolean isCancelable(Event event) {
+        for (Class<?> cls = event.getClass(); cls != null && cls != Event.class; cls = cls.getSuperclass()) {
+            if (cls.isAnnotationPresent(Cancelable.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Cancelable
+    public static class CancelableBase extends Event {
+    }
+
+    public static class CancelableMid extends CancelableBase {
+    }
+
+    public static class CancelableLeaf extends CancelableMid {
+    }
+
+    public static class PlainBase extends Event {
+    }
+
+    public static class PlainMid extends PlainBase {
+    }
+
+    public static class PlainLeaf extends PlainMid {
+    }
+}
@@ -1,16 +1,20 @@
 package cpw.mods.fml.common.asm;
 
 import cpw.mods.fml.common.registry.BlockProxy;
-import cpw.mods.fml.relauncher.IClassTransformer;
+import cpw.mods.fml.relauncher.ITargetedClassTransformer;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
 
-public class ASMTransformer implements IClassTransformer {
+public class ASMTransformer implements ITargetedClassTransformer {
     public ASMTransformer() {
     }
 
+    public boolean isTarget(String name) {
+        return "net.minecraft.src.Block".equals(name);
+    }
+
     public byte[] transform(String name, byte[] bytes) {
         if ("net.minecraft.src.Block".equals(name)) {
             ClassReader cr = new ClassReader(bytes);
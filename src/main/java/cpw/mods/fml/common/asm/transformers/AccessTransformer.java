@@ -8,7 +8,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.io.LineProcessor;
 import com.google.common.io.Resources;
-import cpw.mods.fml.relauncher.IClassTransformer;
+import cpw.mods.fml.relauncher.ITargetedClassTransformer;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.tree.ClassNode;
@@ -24,7 +24,7 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
-public class AccessTransformer implements IClassTransformer {
+public class AccessTransformer implements ITargetedClassTransformer {
     private static final boolean DEBUG = false;
     private Multimap<String, AccessTransformer.Modifier> modifiers;
 
@@ -84,6 +84,10 @@ public class AccessTransformer implements IClassTransformer {
         });
     }
 
+    public boolean isTarget(String name) {
+        return modifiers.containsKey(name);
+    }
+
     public byte[] transform(String name, byte[] bytes) {
         if (!modifiers.containsKey(name)) { return bytes; }
 
@@ -8,7 +8,7 @@ import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.io.LineProcessor;
 import com.google.common.io.Resources;
-import cpw.mods.fml.relauncher.IClassTransformer;
+import cpw.mods.fml.relauncher.ITargetedClassTransformer;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.tree.ClassNode;
@@ -21,7 +21,7 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
-public class MarkerTransformer implements IClassTransformer {
+public class MarkerTransformer implements ITargetedClassTransformer {
     private ListMultimap<String, String> markers;
 
     public MarkerTransformer() throws IOException {
@@ -75,6 +75,10 @@ public class MarkerTransformer implements IClassTransformer {
         });
     }
 
+    public boolean isTarget(String name) {
+        return markers.containsKey(name);
+    }
+
     public byte[] transform(String name, byte[] bytes) {
         if (!markers.containsKey(name)) { return bytes; }
 
@@ -35,14 +35,24 @@ public class ASMDataTable {
         return this.globalAnnotationData.get(annotation);
     }
 
-    public void addASMData(ModCandidate candidate, String annotation, String className, String objectName, Map<String, Object> annotationInfo) {
+    public synchronized void addASMData(ModCandidate candidate, String annotation, String className, String objectName, Map<String, Object> annotationInfo) {
         this.globalAnnotationData.put(annotation, new ASMDataTable.ASMData(candidate, annotation, className, objectName, annotationInfo));
     }
 
-    public void addContainer(ModContainer container) {
+    public synchronized void addContainer(ModContainer container) {
         this.containers.add(container);
     }
 
+    /**
+     * Appends everything found in another table, keeping its insertion order.
+     */
+    public synchronized void merge(ASMDataTable other) {
+        synchronized (other) {
+            this.globalAnnotationData.putAll(other.globalAnnotationData);
+            this.containers.addAll(other.containers);
+        }
+    }
+
     private static class ModContainerPredicate implements Predicate<ASMDataTable.ASMData> {
         private ModContainer container;
 
@@ -21,7 +21,8 @@ public class DirectoryDiscoverer implements ITypeDiscoverer {
     public DirectoryDiscoverer() {
     }
 
-    public List<ModContainer> discover(ModCandidate candidate, ASMDataTable table) {
+    // The discoverer instance is shared by ContainerType and keeps the table in a field
+    public synchronized List<ModContainer> discover(ModCandidate candidate, ASMDataTable table) {
         this.table = table;
         List<ModContainer> found = Lists.newArrayList();
         FMLLog.fine("Examining directory %s for potential mods", candidate.getModContainer().getName());
@@ -71,7 +72,7 @@ public class DirectoryDiscoverer implements ITypeDiscoverer {
                 try
                 {
                     FileInputStream fis = new FileInputStream(file);
-                    modParser = new ASMModParser(fis);
+                    modParser = ASMModParser.parse(fis);
                     fis.close();
                 }
                 catch (LoaderException e)
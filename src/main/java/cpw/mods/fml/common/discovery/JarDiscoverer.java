@@ -1,15 +1,19 @@
 package cpw.mods.fml.common.discovery;
 
 import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
 import cpw.mods.fml.common.*;
 import cpw.mods.fml.common.discovery.asm.ASMModParser;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
 import java.util.logging.Level;
-import java.util.regex.Matcher;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -19,51 +23,86 @@ public class JarDiscoverer implements ITypeDiscoverer {
 
     public List<ModContainer> discover(ModCandidate candidate, ASMDataTable table) {
         List<ModContainer> foundMods = Lists.newArrayList();
+        ModDiscoveryCache cache = ModDiscoveryCache.current();
+        ModDiscoveryCache.Entry cached = cache != null ? cache.get(candidate.getModContainer()) : null;
+        if (cached != null)
+        {
+            FMLLog.fine("Using cached discovery data for file %s", candidate.getModContainer().getName());
+            try
+            {
+                List<ASMModParser> parsers = cached.getParsers();
+                buildContainers(candidate, table, readMetadata(candidate, cached.getModInfo()), parsers, foundMods);
+                return foundMods;
+            }
+            catch (IOException e)
+            {
+                FMLLog.log(Level.FINE, e, "The cached discovery data for %s is unreadable, rescanning", candidate.getModContainer().getName());
+                foundMods.clear();
+            }
+        }
+
         FMLLog.fine("Examining file %s for potential mods", candidate.getModContainer().getName());
         ZipFile jar = null;
         try
         {
             jar = new ZipFile(candidate.getModContainer());
 
-            ZipEntry modInfo = jar.getEntry("mcmod.info");
-            MetadataCollection mc = null;
-            if (modInfo != null)
+            ZipEntry modInfoEntry = jar.getEntry("mcmod.info");
+            byte[] modInfo = null;
+            if (modInfoEntry != null)
             {
                 FMLLog.finer("Located mcmod.info file in file %s", candidate.getModContainer().getName());
-                mc = MetadataCollection.from(jar.getInputStream(modInfo), candidate.getModContainer().getName());
+                InputStream stream = jar.getInputStream(modInfoEntry);
+                try
+                {
+                    modInfo = ByteStreams.toByteArray(stream);
+                }
+                finally
+                {
+                    stream.close();
+                }
             }
             else
             {
                 FMLLog.fine("The mod container %s appears to be missing an mcmod.info file", candidate.getModContainer().getName());
-                mc = MetadataCollection.from(null, "");
             }
+            MetadataCollection mc = readMetadata(candidate, modInfo);
+            List<ZipEntry> classEntries = Lists.newArrayList();
             for (ZipEntry ze : Collections.list(jar.entries()))
             {
-                Matcher match = classFile.matcher(ze.getName());
-                if (match.matches())
+                if (classFile.matcher(ze.getName()).matches())
                 {
-                    ASMModParser modParser;
-                    try
-                    {
-                        modParser = new ASMModParser(jar.getInputStream(ze));
-                    }
-                    catch (LoaderException e)
-                    {
-                        FMLLog.log(Level.SEVERE, e, "There was a problem reading the entry %s in the jar %s - probably a corrupt zip", ze.getName(), candidate.getModContainer().getPath());
-                        jar.close();
-                        throw e;
-                    }
-                    modParser.validate();
-                    modParser.sendToTable(table, candidate);
-                    ModContainer container = ModContainerFactory.instance().build(modParser, candidate.getModContainer(), candidate);
-                    if (container!=null)
-                    {
-                        table.addContainer(container);
-                        foundMods.add(container);
-                        container.bindMetadata(mc);
-                    }
+                    classEntries.add(ze);
+                }
+            }
+
+            List<ForkJoinTask<ASMModParser>> tasks = Lists.newArrayListWithCapacity(classEntries.size());
+            for (ZipEntry ze : classEntries)
+            {
+                tasks.add(ForkJoinTask.adapt(new ParseTask(jar, ze)));
+            }
+            ForkJoinTask.invokeAll(tasks);
+
+            List<ASMModParser> parsers = Lists.newArrayListWithCapacity(classEntries.size());
+            for (int i = 0; i < classEntries.size(); i++)
+            {
+                try
+                {
+                    parsers.add(tasks.get(i).join());
+                }
+                catch (LoaderException e)
+                {
+                    FMLLog.log(Level.SEVERE, e, "There was a problem reading the entry %s in the jar %s - probably a corrupt zip", classEntries.get(i).getName(), candidate.getModContainer().getPath());
+                    jar.close();
+                    throw e;
                 }
             }
+
+            if (cache != null)
+            {
+                cache.put(candidate.getModContainer(), modInfo, parsers);
+            }
+            buildContainers(candidate, table, mc, parsers, foundMods);
         }
         catch (Exception e)
         {
@@ -84,4 +123,53 @@ public class JarDiscoverer implements ITypeDiscoverer {
         }
         return foundMods;
     }
+
+    private MetadataCollection readMetadata(ModCandidate candidate, byte[] modInfo) {
+        if (modInfo == null)
+        {
+            return MetadataCollection.from(null, "");
+        }
+        return MetadataCollection.from(new ByteArrayInputStream(modInfo), candidate.getModContainer().getName());
+    }
+
+    /**
+     * Parsing is independent per class, but building containers depends on the base
+     * mod types remembered from earlier classes, so this part always runs in entry order.
+     */
+    private void buildContainers(ModCandidate candidate, ASMDataTable table, MetadataCollection mc, List<ASMModParser> parsers, List<ModContainer> foundMods) {
+        for (ASMModParser modParser : parsers)
+        {
+            modParser.validate();
+            modParser.sendToTable(table, candidate);
+            ModContainer container = ModContainerFactory.instance().build(modParser, candidate.getModContainer(), candidate);
+            if (container!=null)
+            {
+                table.addContainer(container);
+                foundMods.add(container);
+                container.bindMetadata(mc);
+            }
+        }
+    }
+
+    private static class ParseTask implements Callable<ASMModParser> {
+        private final ZipFile jar;
+        private final ZipEntry entry;
+
+        private ParseTask(ZipFile jar, ZipEntry entry) {
+            this.jar = jar;
+            this.entry = entry;
+        }
+
+        public ASMModParser call() throws Exception {
+            InputStream stream = this.jar.getInputStream(this.entry);
+            try
+            {
+                return ASMModParser.parse(stream);
+            }
+            finally
+            {
+                stream.close();
+            }
+        }
+    }
 }
@@ -8,17 +8,23 @@ import cpw.mods.fml.common.LoaderException;
 import cpw.mods.fml.common.ModClassLoader;
 import cpw.mods.fml.common.ModContainer;
 import cpw.mods.fml.relauncher.RelaunchLibraryManager;
+import fr.catcore.fabricatedforge.Constants;
 
 import java.io.File;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class ModDiscoverer {
     private static Pattern zipJar = Pattern.compile("(.+).(zip|jar)$");
+    private static final int THREADS = Integer.getInteger("fml.discoveryThreads", Runtime.getRuntime().availableProcessors());
     private List<ModCandidate> candidates = Lists.newArrayList();
     private ASMDataTable dataTable = new ASMDataTable();
     private List<File> nonModLibs = Lists.newArrayList();
@@ -90,34 +96,73 @@ public class ModDiscoverer {
 
     public List<ModContainer> identifyMods() {
         List<ModContainer> modList = Lists.newArrayList();
+        List<Future<List<ModContainer>>> results = Lists.newArrayListWithCapacity(candidates.size());
+        List<ASMDataTable> tables = Lists.newArrayListWithCapacity(candidates.size());
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, THREADS));
+        ModDiscoveryCache.open(new File(Constants.CACHE_FOLDER, "fmldiscovery.bin"));
 
-        for (ModCandidate candidate : candidates)
+        // Every candidate is explored into its own table on the pool, then merged back
+        // in candidate order so the result does not depend on scheduling
+        try
         {
-            try
+            for (final ModCandidate candidate : candidates)
             {
-                List<ModContainer> mods = candidate.explore(dataTable);
-                if (mods.isEmpty() && !candidate.isClasspath())
+                final ASMDataTable table = new ASMDataTable();
+                tables.add(table);
+                results.add(pool.submit(new Callable<List<ModContainer>>() {
+                    public List<ModContainer> call()
+                    {
+                        return candidate.explore(table);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < candidates.size(); i++)
+            {
+                ModCandidate candidate = candidates.get(i);
+                try
                 {
-                    nonModLibs.add(candidate.getModContainer());
+                    List<ModContainer> mods = getResult(results.get(i));
+                    dataTable.merge(tables.get(i));
+                    if (mods.isEmpty() && !candidate.isClasspath())
+                    {
+                        nonModLibs.add(candidate.getModContainer());
+                    }
+                    else
+                    {
+                        modList.addAll(mods);
+                    }
                 }
-                else
+                catch (LoaderException le)
                 {
-                    modList.addAll(mods);
+                    FMLLog.log(Level.WARNING, le, "Identified a problem with the mod candidate %s, ignoring this source", candidate.getModContainer());
+                }
+                catch (Throwable t)
+                {
+                    Throwables.propagate(t);
                 }
             }
-            catch (LoaderException le)
-            {
-                FMLLog.log(Level.WARNING, le, "Identified a problem with the mod candidate %s, ignoring this source", candidate.getModContainer());
-            }
-            catch (Throwable t)
-            {
-                Throwables.propagate(t);
-            }
+        }
+        finally
+        {
+            pool.shutdown();
+            ModDiscoveryCache.close();
         }
 
         return modList;
     }
 
+    private static <T> T getResult(Future<T> future) throws Throwable {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException e)
+        {
+            throw e.getCause();
+        }
+    }
+
     public ASMDataTable getASMTable() {
         return this.dataTable;
     }
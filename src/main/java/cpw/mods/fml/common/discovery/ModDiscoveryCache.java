@@ -0,0 +1,207 @@
+package cpw.mods.fml.common.discovery;
+
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import cpw.mods.fml.common.FMLLog;
+import cpw.mods.fml.common.discovery.asm.ASMModParser;
+
+import java.io.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * On-disk index of the class summaries {@link JarDiscoverer} extracts from mod jars.
+ * Entries are keyed by the jar's canonical path and validated against its size and
+ * modification time (and its SHA-1, with -Dfml.discoveryCache.hash=true), so an
+ * unchanged jar is replayed without opening it.
+ */
+public class ModDiscoveryCache {
+    private static final int VERSION = 1;
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("fml.discoveryCache", "true"));
+    private static final boolean HASH = Boolean.parseBoolean(System.getProperty("fml.discoveryCache.hash", "false"));
+    private static volatile ModDiscoveryCache current;
+    private final File file;
+    private final Map<String, ModDiscoveryCache.Entry> stored = new ConcurrentHashMap<String, ModDiscoveryCache.Entry>();
+    private final Map<String, ModDiscoveryCache.Entry> used = new ConcurrentHashMap<String, ModDiscoveryCache.Entry>();
+    private volatile boolean dirty;
+
+    private ModDiscoveryCache(File file) {
+        this.file = file;
+    }
+
+    /**
+     * The cache for the discovery pass in progress, or null when caching is disabled.
+     */
+    public static ModDiscoveryCache current() {
+        return current;
+    }
+
+    static void open(File file) {
+        if (!ENABLED) {
+            return;
+        }
+
+        ModDiscoveryCache cache = new ModDiscoveryCache(file);
+        if (file.isFile()) {
+            try {
+                cache.read();
+            } catch (IOException e) {
+                FMLLog.log(Level.WARNING, e, "The mod discovery cache %s could not be read, it will be rebuilt", file.getName());
+                cache.stored.clear();
+            }
+        }
+        current = cache;
+    }
+
+    static void close() {
+        ModDiscoveryCache cache = current;
+        current = null;
+        if (cache != null && (cache.dirty || cache.used.size() != cache.stored.size())) {
+            try {
+                cache.write();
+            } catch (IOException e) {
+                FMLLog.log(Level.WARNING, e, "The mod discovery cache %s could not be written", cache.file.getName());
+            }
+        }
+    }
+
+    /**
+     * Returns the cached summary for the jar if it is still up to date.
+     */
+    public ModDiscoveryCache.Entry get(File jar) {
+        try {
+            String key = jar.getCanonicalPath();
+            ModDiscoveryCache.Entry entry = this.stored.get(key);
+            if (entry == null || entry.size != jar.length() || entry.lastModified != jar.lastModified()
+                    || HASH && !hash(jar).equals(entry.hash)) {
+                return null;
+            }
+            this.used.put(key, entry);
+            return entry;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void put(File jar, byte[] modInfo, List<ASMModParser> parsers) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(parsers.size());
+            for (ASMModParser parser : parsers) {
+                parser.writeTo(out);
+            }
+            out.close();
+
+            String key = jar.getCanonicalPath();
+            ModDiscoveryCache.Entry entry = new ModDiscoveryCache.Entry(jar.length(), jar.lastModified(), HASH ? hash(jar) : "", modInfo, bytes.toByteArray());
+            this.stored.put(key, entry);
+            this.used.put(key, entry);
+            this.dirty = true;
+        } catch (IOException e) {
+            FMLLog.log(Level.FINE, e, "Unable to cache the discovery data for %s", jar.getName());
+        }
+    }
+
+    private static String hash(File jar) throws IOException {
+        return Files.hash(jar, Hashing.sha1()).toString();
+    }
+
+    private void read() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+        try {
+            if (in.readInt() != VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                String hash = in.readUTF();
+                byte[] modInfo = null;
+                int modInfoLength = in.readInt();
+                if (modInfoLength >= 0) {
+                    modInfo = new byte[modInfoLength];
+                    in.readFully(modInfo);
+                }
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                this.stored.put(key, new ModDiscoveryCache.Entry(size, lastModified, hash, modInfo, data));
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private void write() throws IOException {
+        this.file.getParentFile().mkdirs();
+        File temp = new File(this.file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            // Only jars seen during this run are kept, so removed mods drop out of the cache
+            out.writeInt(VERSION);
+            out.writeInt(this.used.size());
+            for (Map.Entry<String, ModDiscoveryCache.Entry> e : this.used.entrySet()) {
+                ModDiscoveryCache.Entry entry = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeLong(entry.size);
+                out.writeLong(entry.lastModified);
+                out.writeUTF(entry.hash);
+                if (entry.modInfo == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(entry.modInfo.length);
+                    out.write(entry.modInfo);
+                }
+                out.writeInt(entry.data.length);
+                out.write(entry.data);
+            }
+        } finally {
+            out.close();
+        }
+
+        if (!temp.renameTo(this.file)) {
+            this.file.delete();
+            if (!temp.renameTo(this.file)) {
+                throw new IOException("Unable to replace " + this.file);
+            }
+        }
+    }
+
+    public static class Entry {
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+        private final byte[] modInfo;
+        private final byte[] data;
+
+        private Entry(long size, long lastModified, String hash, byte[] modInfo, byte[] data) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.modInfo = modInfo;
+            this.data = data;
+        }
+
+        /**
+         * The raw mcmod.info of the jar, or null if it has none.
+         */
+        public byte[] getModInfo() {
+            return this.modInfo;
+        }
+
+        public List<ASMModParser> getParsers() throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(this.data));
+            int count = in.readInt();
+            List<ASMModParser> parsers = Lists.newArrayListWithCapacity(count);
+            for (int i = 0; i < count; i++) {
+                parsers.add(ASMModParser.readFrom(in));
+            }
+            return parsers;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package cpw.mods.fml.common.discovery.asm;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
 import cpw.mods.fml.common.FMLLog;
 import cpw.mods.fml.common.LoaderException;
 import cpw.mods.fml.common.discovery.ASMDataTable;
@@ -10,6 +12,8 @@ import net.minecraft.BaseMod;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
@@ -25,6 +29,12 @@ public class ASMModParser {
     private LinkedList<ModAnnotation> annotations = Lists.newLinkedList();
     private String baseModProperties;
 
+    private static final String BASEMOD_TYPE = Type.getInternalName(BaseMod.class);
+    private static final byte[][] ANNOTATION_ATTRIBUTES = new byte[][]{
+            "RuntimeVisibleAnnotations".getBytes(Charsets.UTF_8),
+            "RuntimeInvisibleAnnotations".getBytes(Charsets.UTF_8)
+    };
+
     public ASMModParser(InputStream stream) throws IOException {
         try {
             ClassReader reader = new ClassReader(stream);
@@ -35,6 +45,94 @@ public class ASMModParser {
         }
     }
 
+    private ASMModParser(ClassReader reader) {
+        reader.accept(new ModClassVisitor(this), 0);
+    }
+
+    /**
+     * Parses a class, skipping the full visit for classes that can contribute nothing
+     * beyond their name and super type: those without any annotation attribute that
+     * do not directly extend BaseMod. Most classes in a mod jar fall in that group.
+     */
+    public static ASMModParser parse(InputStream stream) throws IOException {
+        try {
+            ClassReader reader = new ClassReader(ByteStreams.toByteArray(stream));
+            if (BASEMOD_TYPE.equals(reader.getSuperName()) || hasAnnotations(reader)) {
+                return new ASMModParser(reader);
+            }
+
+            ASMModParser parser = new ASMModParser();
+            // The header stores minor then major version, ASM reports them packed the same way
+            parser.beginNewTypeName(reader.getClassName(), reader.readInt(4), reader.getSuperName());
+            return parser;
+        } catch (Exception var3) {
+            FMLLog.log(Level.SEVERE, var3, "Unable to read a class file correctly", new Object[0]);
+            throw new LoaderException(var3);
+        }
+    }
+
+    private static boolean hasAnnotations(ClassReader reader) {
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            int offset = reader.getItem(i);
+            // Only CONSTANT_Utf8 entries can name an attribute
+            if (offset == 0 || reader.readByte(offset - 1) != 1) {
+                continue;
+            }
+
+            int length = reader.readUnsignedShort(offset);
+            for (byte[] name : ANNOTATION_ATTRIBUTES) {
+                if (length == name.length && utf8Equals(reader, offset + 2, name)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean utf8Equals(ClassReader reader, int offset, byte[] name) {
+        for (int i = 0; i < name.length; i++) {
+            if ((byte)reader.readByte(offset + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rebuilds a parser from the summary written by {@link #writeTo(DataOutput)},
+     * without touching the class bytes.
+     */
+    public static ASMModParser readFrom(DataInput in) throws IOException {
+        ASMModParser parser = new ASMModParser();
+        parser.asmType = Type.getObjectType(in.readUTF());
+        parser.classVersion = in.readInt();
+        parser.asmSuperType = Type.getObjectType(in.readUTF());
+        parser.baseModProperties = in.readBoolean() ? in.readUTF() : null;
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            parser.annotations.addLast(ModAnnotation.readFrom(in));
+        }
+        return parser;
+    }
+
+    private ASMModParser() {
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(this.asmType.getInternalName());
+        out.writeInt(this.classVersion);
+        out.writeUTF(this.asmSuperType.getInternalName());
+        out.writeBoolean(this.baseModProperties != null);
+        if (this.baseModProperties != null) {
+            out.writeUTF(this.baseModProperties);
+        }
+        out.writeInt(this.annotations.size());
+        for (ModAnnotation ann : this.annotations) {
+            ann.writeTo(out);
+        }
+    }
+
     public void beginNewTypeName(String typeQName, int classVersion, String superClassQName) {
         this.asmType = Type.getObjectType(typeQName);
         this.classVersion = classVersion;
@@ -5,7 +5,12 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.objectweb.asm.Type;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class ModAnnotation {
@@ -77,6 +82,138 @@ public class ModAnnotation {
         return new ModAnnotation(ASMModParser.AnnotationType.SUBTYPE, Type.getType(desc), this);
     }
 
+    void writeTo(DataOutput out) throws IOException {
+        out.writeByte(this.type.ordinal());
+        out.writeUTF(this.asmType.getDescriptor());
+        out.writeBoolean(this.member != null);
+        if (this.member != null) {
+            out.writeUTF(this.member);
+        }
+        out.writeInt(this.values.size());
+        for (Map.Entry<String, Object> entry : this.values.entrySet()) {
+            out.writeUTF(entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    static ModAnnotation readFrom(DataInput in) throws IOException {
+        ASMModParser.AnnotationType type = ASMModParser.AnnotationType.values()[in.readByte()];
+        Type asmType = Type.getType(in.readUTF());
+        String member = in.readBoolean() ? in.readUTF() : null;
+        ModAnnotation ann = new ModAnnotation(type, asmType, member);
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF();
+            ann.values.put(key, ann.readValue(in));
+        }
+        return ann;
+    }
+
+    private static void writeValue(DataOutput out, Object value) throws IOException {
+        if (value instanceof String) {
+            out.writeByte(0);
+            out.writeUTF((String)value);
+        } else if (value instanceof Byte) {
+            out.writeByte(1);
+            out.writeByte((Byte)value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(2);
+            out.writeBoolean((Boolean)value);
+        } else if (value instanceof Character) {
+            out.writeByte(3);
+            out.writeChar((Character)value);
+        } else if (value instanceof Short) {
+            out.writeByte(4);
+            out.writeShort((Short)value);
+        } else if (value instanceof Integer) {
+            out.writeByte(5);
+            out.writeInt((Integer)value);
+        } else if (value instanceof Long) {
+            out.writeByte(6);
+            out.writeLong((Long)value);
+        } else if (value instanceof Float) {
+            out.writeByte(7);
+            out.writeFloat((Float)value);
+        } else if (value instanceof Double) {
+            out.writeByte(8);
+            out.writeDouble((Double)value);
+        } else if (value instanceof Type) {
+            out.writeByte(9);
+            out.writeUTF(((Type)value).getDescriptor());
+        } else if (value instanceof EnumHolder) {
+            out.writeByte(10);
+            out.writeUTF(((EnumHolder)value).desc);
+            out.writeUTF(((EnumHolder)value).value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>)value;
+            out.writeByte(11);
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value != null && value.getClass().isArray() && value.getClass().getComponentType().isPrimitive()) {
+            // ASM hands over arrays of primitives in one piece rather than through visitArray
+            int length = Array.getLength(value);
+            out.writeByte(12);
+            out.writeUTF(Type.getDescriptor(value.getClass().getComponentType()));
+            out.writeInt(length);
+            for (int i = 0; i < length; i++) {
+                writeValue(out, Array.get(value, i));
+            }
+        } else {
+            throw new IOException("Unsupported annotation value " + value);
+        }
+    }
+
+    private Object readValue(DataInput in) throws IOException {
+        int tag = in.readByte();
+        switch (tag) {
+            case 0: return in.readUTF();
+            case 1: return in.readByte();
+            case 2: return in.readBoolean();
+            case 3: return in.readChar();
+            case 4: return in.readShort();
+            case 5: return in.readInt();
+            case 6: return in.readLong();
+            case 7: return in.readFloat();
+            case 8: return in.readDouble();
+            case 9: return Type.getType(in.readUTF());
+            case 10: return new EnumHolder(in.readUTF(), in.readUTF());
+            case 11: {
+                int size = in.readInt();
+                ArrayList<Object> list = Lists.newArrayListWithCapacity(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(this.readValue(in));
+                }
+                return list;
+            }
+            case 12: {
+                Class<?> component = primitiveClass(in.readUTF().charAt(0));
+                int length = in.readInt();
+                Object array = Array.newInstance(component, length);
+                for (int i = 0; i < length; i++) {
+                    Array.set(array, i, this.readValue(in));
+                }
+                return array;
+            }
+            default: throw new IOException("Unknown annotation value tag " + tag);
+        }
+    }
+
+    private static Class<?> primitiveClass(char desc) throws IOException {
+        switch (desc) {
+            case 'B': return byte.class;
+            case 'Z': return boolean.class;
+            case 'C': return char.class;
+            case 'S': return short.class;
+            case 'I': return int.class;
+            case 'J': return long.class;
+            case 'F': return float.class;
+            case 'D': return double.class;
+            default: throw new IOException("Unknown primitive descriptor " + desc);
+        }
+    }
+
     public class EnumHolder {
         private String desc;
         private String value;
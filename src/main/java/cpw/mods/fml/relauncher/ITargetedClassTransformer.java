@@ -0,0 +1,10 @@
+package cpw.mods.fml.relauncher;
+
+/**
+ * A transformer that only ever touches a known set of classes. The class loader
+ * asks {@link #isTarget(String)} first and skips the transformer, without handing
+ * it any bytes, for every other class.
+ */
+public interface ITargetedClassTransformer extends IClassTransformer {
+    boolean isTarget(String name);
+}
@@ -10,7 +10,10 @@ import java.util.jar.Manifest;
 import net.fabricmc.loader.impl.launch.FabricLauncherBase;
 import net.fabricmc.loader.impl.util.UrlUtil;
 
+import fr.catcore.fabricatedforge.Constants;
+
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
@@ -29,6 +32,7 @@ public class RelaunchClassLoader extends URLClassLoader {
     private Map<String, Class> cachedClasses;
     private Set<String> classLoaderExceptions = new HashSet<>();
     private Set<String> transformerExceptions = new HashSet<>();
+    private TransformedClassCache transformCache;
 
     public RelaunchClassLoader() {
         super(new URL[0], FabricLauncherBase.getLauncher().getTargetClassLoader());
@@ -36,6 +40,10 @@ public class RelaunchClassLoader extends URLClassLoader {
         this.parent = this.getClass().getClassLoader();
         this.cachedClasses = new HashMap<>(1000);
         this.transformers = new ArrayList<>(2);
+        if (TransformedClassCache.ENABLED) {
+            this.transformCache = new TransformedClassCache(new File(Constants.CACHE_FOLDER, "classes"));
+            this.transformCache.setTransformers(this.transformers);
+        }
 //        ReflectionHelper.setPrivateValue(ClassLoader.class, null, this, "scl");
         Thread.currentThread().setContextClassLoader(this);
 
@@ -56,6 +64,9 @@ public class RelaunchClassLoader extends URLClassLoader {
     public void registerTransformer(String transformerClassName) {
         try {
             this.transformers.add((IClassTransformer) this.loadClass(transformerClassName).newInstance());
+            if (this.transformCache != null) {
+                this.transformCache.setTransformers(this.transformers);
+            }
         } catch (Exception var3) {
             FMLRelaunchLog.log(Level.SEVERE, var3, "A critical problem occurred registering the ASM transformer class %s", transformerClassName);
         }
@@ -102,6 +113,7 @@ public class RelaunchClassLoader extends URLClassLoader {
         try
         {
             CodeSigner[] signers = null;
+            byte[] basicClass = null;
             int lastDot = name.lastIndexOf('.');
             String pkgname = lastDot == -1 ? "" : name.substring(0, lastDot);
             String fName = name.replace('.', '/').concat(".class");
@@ -115,7 +127,8 @@ public class RelaunchClassLoader extends URLClassLoader {
                     Manifest mf = jf.getManifest();
                     JarEntry ent = jf.getJarEntry(fName);
                     Package pkg = getPackage(pkgname);
-                    getClassBytes(name);
+                    // Code signers are only known once the entry has been read, keep the bytes
+                    basicClass = readFully(jf.getInputStream(ent));
                     signers = ent.getCodeSigners();
                     if (pkg != null)
                     {
@@ -137,7 +150,9 @@ public class RelaunchClassLoader extends URLClassLoader {
                     definePackage(pkgname, null, null, null, null, null, null, null);
                 }
             }
-            byte[] basicClass = getClassBytes(name);
+            if (basicClass == null) {
+                basicClass = getClassBytes(name);
+            }
             byte[] transformedClass = runTransformers(name, basicClass);
             URL url = urlConnection == null ? null : urlConnection.getURL();
             Class<?> cl = defineClass(name, transformedClass, 0, transformedClass.length, new CodeSource(url, signers));
@@ -209,10 +224,27 @@ public class RelaunchClassLoader extends URLClassLoader {
     }
 
     private byte[] runTransformers(String name, byte[] basicClass) {
+        String cacheKey = null;
+        if (this.transformCache != null && basicClass != null) {
+            cacheKey = this.transformCache.key(basicClass);
+            byte[] cached = this.transformCache.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         for (IClassTransformer transformer : transformers)
         {
+            if (transformer instanceof ITargetedClassTransformer && !((ITargetedClassTransformer) transformer).isTarget(name))
+            {
+                continue;
+            }
             basicClass = transformer.transform(name, basicClass);
         }
+
+        if (cacheKey != null) {
+            this.transformCache.put(cacheKey, basicClass);
+        }
         return basicClass;
     }
 
@@ -230,12 +262,14 @@ public class RelaunchClassLoader extends URLClassLoader {
 
     private byte[] readFully(InputStream stream) {
         try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream(stream.available());
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(stream.available(), 4096));
+            byte[] buffer = new byte[4096];
 
             int r;
-            while ((r = stream.read()) != -1) {
-                bos.write(r);
+            while ((r = stream.read(buffer)) != -1) {
+                bos.write(buffer, 0, r);
             }
+            stream.close();
 
             return bos.toByteArray();
         } catch (Throwable var4) {
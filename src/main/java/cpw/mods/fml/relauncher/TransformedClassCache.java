@@ -0,0 +1,97 @@
+package cpw.mods.fml.relauncher;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * Disk cache of transformed class bytes for {@link RelaunchClassLoader}, enabled with
+ * -Dfml.classCache=true. Entries live in a directory named after a fingerprint of the
+ * transformer chain (transformer classes and the jars they come from) and are keyed by
+ * the SHA-1 of the untransformed bytes, so a change to either side misses cleanly.
+ *
+ * Transformers reading rules from outside their own jar are not part of the
+ * fingerprint; delete the cache directory after editing such rules.
+ */
+class TransformedClassCache {
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("fml.classCache", "false"));
+    private final File root;
+    private File dir;
+
+    TransformedClassCache(File root) {
+        this.root = root;
+    }
+
+    /**
+     * Recomputes the fingerprint; called whenever the transformer chain changes.
+     */
+    synchronized void setTransformers(List<IClassTransformer> transformers) {
+        Hasher hasher = Hashing.sha1().newHasher();
+        for (IClassTransformer transformer : transformers) {
+            hasher.putString(transformer.getClass().getName());
+            CodeSource source = transformer.getClass().getProtectionDomain().getCodeSource();
+            URL location = source == null ? null : source.getLocation();
+            if (location != null) {
+                hasher.putString(location.toString());
+                if ("file".equals(location.getProtocol())) {
+                    try {
+                        // Through the URI, so an escaped path like one with spaces names the real file
+                        File file = new File(location.toURI());
+                        hasher.putLong(file.length());
+                        hasher.putLong(file.lastModified());
+                    } catch (URISyntaxException | IllegalArgumentException e) {
+                        FMLRelaunchLog.log(Level.FINE, e, "Unable to locate transformer source %s", location);
+                    }
+                }
+            }
+        }
+        this.dir = new File(this.root, hasher.hash().toString());
+    }
+
+    String key(byte[] original) {
+        return Hashing.sha1().hashBytes(original).toString();
+    }
+
+    byte[] get(String key) {
+        File file = this.file(key);
+        if (file != null && file.isFile()) {
+            try {
+                return Files.toByteArray(file);
+            } catch (IOException e) {
+                FMLRelaunchLog.log(Level.FINE, e, "Unable to read cached class %s", file.getName());
+            }
+        }
+        return null;
+    }
+
+    void put(String key, byte[] transformed) {
+        File file = this.file(key);
+        if (file == null || transformed == null) {
+            return;
+        }
+
+        try {
+            file.getParentFile().mkdirs();
+            // Write aside and rename so a concurrent reader never sees a partial class
+            File temp = File.createTempFile(key, ".tmp", file.getParentFile());
+            Files.write(transformed, temp);
+            if (!temp.renameTo(file)) {
+                temp.delete();
+            }
+        } catch (IOException e) {
+            FMLRelaunchLog.log(Level.FINE, e, "Unable to cache transformed class %s", key);
+        }
+    }
+
+    private synchronized File file(String key) {
+        return this.dir == null ? null : new File(this.dir, key);
+    }
+}
@@ -1,14 +1,29 @@
 package fr.catcore.fabricatedforge.mixin.forgefml.block.entity;
 
 import fr.catcore.fabricatedforge.mixininterface.IBlockEntity;
+import fr.catcore.fabricatedforge.mixininterface.IWorld;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.network.Connection;
 import net.minecraft.network.packet.s2c.play.BlockEntityUpdateS2CPacket;
+import net.minecraft.world.World;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(BlockEntity.class)
 public abstract class BlockEntityMixin implements IBlockEntity {
 
+    @Shadow public World world;
+
+    @Unique
+    private boolean sleeping;
+
+    @Unique
+    private long wakeTime = -1;
+
     @Override
     public boolean canUpdate() {
         return true;
@@ -26,4 +41,37 @@ public abstract class BlockEntityMixin implements IBlockEntity {
     public double getRenderDistance() {
         return 64.0;
     }
+
+    @Override
+    public void sleep(long wakeTime) {
+        this.sleeping = true;
+        this.wakeTime = wakeTime;
+    }
+
+    @Override
+    public void wake() {
+        if (this.sleeping) {
+            this.sleeping = false;
+            this.wakeTime = -1;
+            if (this.world != null) {
+                ((IWorld)this.world).wakeTileEntity((BlockEntity)(Object) this);
+            }
+        }
+    }
+
+    // Lets the world drop it from its sleepers however it was removed; being removed, it isn't ticked again
+    @Inject(method = "markRemoved", at = @At("TAIL"))
+    private void wakeOnRemoval(CallbackInfo ci) {
+        this.wake();
+    }
+
+    @Override
+    public boolean isSleeping() {
+        return this.sleeping;
+    }
+
+    @Override
+    public long getWakeTime() {
+        return this.wakeTime;
+    }
 }
@@ -100,11 +100,15 @@ public abstract class ItemEntityMixin extends Entity {
 
         ++this.age;
         if (this.age >= this.lifespan) {
-            ItemExpireEvent event = new ItemExpireEvent((ItemEntity)(Object) this, this.stack.getItem() == null ? 6000 : ((IItem)this.stack.getItem()).getEntityLifespan(this.stack, this.world));
-            if (MinecraftForge.EVENT_BUS.post(event)) {
-                this.lifespan += event.extraLife;
-            } else {
+            if (!MinecraftForge.EVENT_BUS.hasListeners(ItemExpireEvent.class)) {
                 this.remove();
+            } else {
+                ItemExpireEvent event = new ItemExpireEvent((ItemEntity)(Object) this, this.stack.getItem() == null ? 6000 : ((IItem)this.stack.getItem()).getEntityLifespan(this.stack, this.world));
+                if (MinecraftForge.EVENT_BUS.post(event)) {
+                    this.lifespan += event.extraLife;
+                } else {
+                    this.remove();
+                }
             }
         }
 
@@ -1,6 +1,7 @@
 package fr.catcore.fabricatedforge.mixin.forgefml.entity;
 
 import fr.catcore.fabricatedforge.mixininterface.IBlock;
+import fr.catcore.fabricatedforge.util.SpawnChunkSet;
 import net.minecraft.block.Block;
 import net.minecraft.block.material.Material;
 import net.minecraft.entity.EntityCategory;
@@ -14,7 +15,6 @@ import net.minecraft.entity.passive.SheepEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3i;
 import net.minecraft.world.World;
@@ -23,16 +23,13 @@ import net.minecraftforge.event.entity.living.LivingSpecialSpawnEvent;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.Shadow;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
+import org.spongepowered.asm.mixin.Unique;
 
 @Mixin(MobSpawnerHelper.class)
 public abstract class MobSpawnerHelperMixin {
 
-    @Shadow private static HashMap field_4593;
+    @Unique
+    private static final SpawnChunkSet spawnChunks = new SpawnChunkSet();
 
     @Shadow
     protected static Vec3i getRandomPosInChunk(World world, int i, int j) {
@@ -48,12 +45,11 @@ public abstract class MobSpawnerHelperMixin {
         if (!par1 && !par2) {
             return 0;
         } else {
-            field_4593.clear();
+            spawnChunks.clear();
 
             int var3;
             int var6;
             int var7;
-            ChunkPos var37;
             for(var3 = 0; var3 < par0WorldServer.playerEntities.size(); ++var3) {
                 PlayerEntity var4 = (PlayerEntity)par0WorldServer.playerEntities.get(var3);
                 int var5 = MathHelper.floor(var4.x / 16.0);
@@ -63,12 +59,7 @@ public abstract class MobSpawnerHelperMixin {
                 for(int var8 = -var7; var8 <= var7; ++var8) {
                     for(int var9 = -var7; var9 <= var7; ++var9) {
                         boolean var10 = var8 == -var7 || var8 == var7 || var9 == -var7 || var9 == var7;
-                        var37 = new ChunkPos(var8 + var5, var9 + var6);
-                        if (!var10) {
-                            field_4593.put(var37, false);
-                        } else if (!field_4593.containsKey(var37)) {
-                            field_4593.put(var37, true);
-                        }
+                        spawnChunks.add(var8 + var5, var9 + var6, var10);
                     }
                 }
             }
@@ -81,10 +72,9 @@ public abstract class MobSpawnerHelperMixin {
             label120:
             for(var7 = 0; var7 < var6; ++var7) {
                 EntityCategory var34 = var32[var7];
-                if ((!var34.isHostile() || par2) && (var34.isHostile() || par1) && par0WorldServer.getPersistentEntityCount(var34.getCategoryClass()) <= var34.getSpawnCap() * field_4593.size() / 256) {
-                    ArrayList<ChunkPos> tmp = new ArrayList<>(field_4593.keySet());
-                    Collections.shuffle(tmp);
-                    Iterator<ChunkPos> var35 = tmp.iterator();
+                if ((!var34.isHostile() || par2) && (var34.isHostile() || par1) && par0WorldServer.getPersistentEntityCount(var34.getCategoryClass()) <= var34.getSpawnCap() * spawnChunks.size() / 256) {
+                    spawnChunks.shuffle();
+                    int var35 = 0;
 
                     label117:
                     while(true) {
@@ -94,14 +84,12 @@ public abstract class MobSpawnerHelperMixin {
                         do {
                             do {
                                 do {
-                                    if (!var35.hasNext()) {
+                                    if (var35 >= spawnChunks.size()) {
                                         continue label120;
                                     }
+                                } while(spawnChunks.isEdge(var35++));
 
-                                    var37 = (ChunkPos)var35.next();
-                                } while((Boolean)field_4593.get(var37));
-
-                                Vec3i var36 = getRandomPosInChunk(par0WorldServer, var37.x, var37.z);
+                                Vec3i var36 = getRandomPosInChunk(par0WorldServer, spawnChunks.getX(var35 - 1), spawnChunks.getZ(var35 - 1));
                                 var12 = var36.x;
                                 var13 = var36.y;
                                 var14 = var36.z;
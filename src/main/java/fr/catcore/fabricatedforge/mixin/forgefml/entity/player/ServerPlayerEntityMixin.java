@@ -1,5 +1,6 @@
 package fr.catcore.fabricatedforge.mixin.forgefml.entity.player;
 
+import fr.catcore.fabricatedforge.mixininterface.IServerChunkProvider;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.entity.ItemEntity;
 import net.minecraft.entity.damage.DamageSource;
@@ -100,6 +101,11 @@ public abstract class ServerPlayerEntityMixin extends PlayerEntity implements Sc
 
             while(var9.hasNext() && var6.size() < 5) {
                 ChunkPos var4 = (ChunkPos)var9.next();
+                if (var4 != null && !this.world.isPosLoaded(var4.x << 4, 0, var4.z << 4) && ((IServerChunkProvider)((ServerWorld)this.world).chunkCache).isChunkLoadPending(var4.x, var4.z)) {
+                    // Sent once its asynchronous load has finished
+                    continue;
+                }
+
                 var9.remove();
                 if (var4 != null && this.world.isPosLoaded(var4.x << 4, 0, var4.z << 4)) {
                     var6.add(this.world.getChunk(var4.x, var4.z));
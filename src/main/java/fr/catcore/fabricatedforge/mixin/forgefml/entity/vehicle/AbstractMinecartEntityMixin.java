@@ -426,7 +426,9 @@ public abstract class AbstractMinecartEntityMixin extends Entity implements Inve
             }
 
             this.updateFuel();
-            MinecraftForge.EVENT_BUS.post(new MinecartUpdateEvent((AbstractMinecartEntity)(Object) this, (float)var1, (float)var2, (float)var3));
+            if (MinecraftForge.EVENT_BUS.hasListeners(MinecartUpdateEvent.class)) {
+                MinecraftForge.EVENT_BUS.post(new MinecartUpdateEvent((AbstractMinecartEntity)(Object) this, (float)var1, (float)var2, (float)var3));
+            }
         }
 
     }
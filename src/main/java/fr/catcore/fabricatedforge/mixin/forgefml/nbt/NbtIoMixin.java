@@ -1,5 +1,6 @@
 package fr.catcore.fabricatedforge.mixin.forgefml.nbt;
 
+import fr.catcore.fabricatedforge.util.NbtFileIo;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtIo;
 import org.spongepowered.asm.mixin.Mixin;
@@ -26,12 +27,13 @@ public abstract class NbtIoMixin {
      */
     @Overwrite
     public static void write(NbtCompound par0NBTTagCompound, File par1File) throws IOException {
-        DataOutputStream var2 = new DataOutputStream(new FileOutputStream(par1File));
+        NbtFileIo.AtomicOutput var2 = NbtFileIo.openAtomicOutput(par1File);
 
         try {
             method_1345(par0NBTTagCompound, var2);
+            var2.commit();
         } finally {
-            var2.close();
+            var2.abort();
         }
 
     }
@@ -45,7 +47,7 @@ public abstract class NbtIoMixin {
         if (!par0File.exists()) {
             return null;
         } else {
-            DataInputStream var1 = new DataInputStream(new FileInputStream(par0File));
+            DataInputStream var1 = NbtFileIo.openInput(par0File);
 
             NbtCompound var2;
             try {
@@ -1,11 +1,15 @@
 package fr.catcore.fabricatedforge.mixin.forgefml.server;
 
+import fr.catcore.fabricatedforge.mixininterface.IServerChunkProvider;
 import net.minecraft.server.PlayerWorldManager;
 import net.minecraft.server.class_793;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ServerChunkProvider;
 import org.spongepowered.asm.mixin.*;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.ModifyArg;
+import org.spongepowered.asm.mixin.injection.Redirect;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(class_793.class)
@@ -20,4 +24,11 @@ public abstract class class_793Mixin {
     private int fml15_2(int i) {
         return i - 1;
     }
+
+    // Players entering new terrain shouldn't stall the tick on region reads
+    @Redirect(method = "<init>", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/chunk/ServerChunkProvider;getOrGenerateChunk(II)Lnet/minecraft/world/chunk/Chunk;"))
+    private Chunk loadChunkAsync(ServerChunkProvider provider, int chunkX, int chunkZ) {
+        ((IServerChunkProvider)provider).loadChunkAsync(chunkX, chunkZ, null);
+        return null;
+    }
 }
@@ -4,6 +4,9 @@ import fr.catcore.fabricatedforge.mixininterface.IMinecraftServer;
 import fr.catcore.fabricatedforge.mixininterface.IServerChunkProvider;
 import fr.catcore.fabricatedforge.mixininterface.IServerWorld;
 import fr.catcore.fabricatedforge.mixininterface.IThreadedAnvilChunkStorage;
+import fr.catcore.fabricatedforge.mixininterface.IWorld;
+import fr.catcore.fabricatedforge.util.RegionStorage;
+import fr.catcore.fabricatedforge.util.ScheduledTickWheel;
 import net.minecraft.block.Block;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.entity.LightningBoltEntity;
@@ -29,8 +32,11 @@ import net.minecraft.world.gen.feature.BonusChestFeature;
 import net.minecraft.world.level.LevelInfo;
 import net.minecraft.world.level.storage.WorldSaveException;
 import net.minecraftforge.common.ChestGenHooks;
+import net.minecraftforge.common.ChunkTickProfiler;
 import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.common.ForgeChunkManager;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.common.TickBudget;
 import net.minecraftforge.event.world.WorldEvent;
 import org.spongepowered.asm.mixin.*;
 import org.spongepowered.asm.mixin.injection.At;
@@ -44,10 +50,6 @@ import java.util.*;
 public abstract class ServerWorldMixin extends World implements IServerWorld {
     @Shadow private boolean ready;
 
-    @Shadow private Set entityNavigations;
-
-    @Shadow private TreeSet field_2812;
-
     @Shadow private int idleTimeout;
 
     @Shadow @Final private MinecraftServer server;
@@ -67,6 +69,12 @@ public abstract class ServerWorldMixin extends World implements IServerWorld {
     @Unique
     protected Set<ChunkPos> doneChunks = new HashSet<>();
 
+    @Unique
+    private final Set<ChunkPos> deferredRandomTicks = new HashSet<>();
+
+    @Unique
+    private final ScheduledTickWheel scheduledTicks = new ScheduledTickWheel();
+
     @Inject(method = "<init>", at = @At("RETURN"))
     private void fmlCtr(MinecraftServer par1MinecraftServer, SaveHandler par2ISaveHandler, String par3Str, int par4, LevelInfo par5WorldSettings, Profiler par6Profiler, CallbackInfo ci) {
         DimensionManager.setWorld(par4, (ServerWorld)(Object) this);
@@ -111,12 +119,25 @@ public abstract class ServerWorldMixin extends World implements IServerWorld {
         int var1 = 0;
         int var2 = 0;
         Iterator var3 = this.field_4530.iterator();
-        this.doneChunks.retainAll(this.field_4530);
-        if (this.doneChunks.size() == this.field_4530.size()) {
-            this.doneChunks.clear();
+        if (this.doneChunks.size() >= this.field_4530.size()) {
+            this.doneChunks.retainAll(this.field_4530);
+            if (this.doneChunks.size() == this.field_4530.size()) {
+                this.doneChunks.clear();
+            }
         }
 
-        long time = -System.currentTimeMillis();
+        if (!this.deferredRandomTicks.isEmpty()) {
+            this.deferredRandomTicks.retainAll(this.field_4530);
+        }
+
+        ChunkTickProfiler chunkProfiler = ((IWorld)this).getChunkTickProfiler();
+        if (chunkProfiler != null) {
+            chunkProfiler.tick();
+        }
+
+        boolean timeRandomTicks = TickBudget.RANDOM_TICKS.isLimited() || chunkProfiler != null;
+        long chunkUpdateNanos = 0L;
+        long randomTickNanos = 0L;
 
         while(var3.hasNext()) {
             ChunkPos var4 = (ChunkPos)var3.next();
@@ -126,8 +147,14 @@ public abstract class ServerWorldMixin extends World implements IServerWorld {
             Chunk var7 = this.getChunk(var4.x, var4.z);
             this.method_3605(var5, var6, var7);
             this.profiler.swap("tickChunk");
-            if (System.currentTimeMillis() + time <= 4L && this.doneChunks.add(var4)) {
+            if (!TickBudget.CHUNK_UPDATES.isSpent(chunkUpdateNanos) && this.doneChunks.add(var4)) {
+                long start = System.nanoTime();
                 var7.tick();
+                long time = System.nanoTime() - start;
+                chunkUpdateNanos += time;
+                if (chunkProfiler != null) {
+                    chunkProfiler.record(var4.x, var4.z, TickBudget.CHUNK_UPDATES, time);
+                }
             }
 
             this.profiler.swap("thunder");
@@ -175,6 +202,14 @@ public abstract class ServerWorldMixin extends World implements IServerWorld {
             }
 
             this.profiler.swap("tickTiles");
+            // A chunk skipped for budget last tick is always ticked this time
+            if (!(!this.deferredRandomTicks.isEmpty() && this.deferredRandomTicks.remove(var4)) && TickBudget.RANDOM_TICKS.isSpent(randomTickNanos)) {
+                this.deferredRandomTicks.add(var4);
+                this.profiler.pop();
+                continue;
+            }
+
+            long start = timeRandomTicks ? System.nanoTime() : 0L;
             ChunkSection[] var19 = var7.getBlockStorage();
             var9 = var19.length;
 
@@ -198,6 +233,14 @@ public abstract class ServerWorldMixin extends World implements IServerWorld {
                 }
             }
 
+            if (timeRandomTicks) {
+                long time = System.nanoTime() - start;
+                randomTickNanos += time;
+                if (chunkProfiler != null) {
+                    chunkProfiler.record(var4.x, var4.z, TickBudget.RANDOM_TICKS, time);
+                }
+            }
+
             this.profiler.pop();
         }
 
@@ -210,7 +253,7 @@ public abstract class ServerWorldMixin extends World implements IServerWorld {
     @Overwrite
     public void method_3599(int par1, int par2, int par3, int par4, int par5) {
         TickableEntry var6 = new TickableEntry(par1, par2, par3, par4);
-        boolean isForced = this.getPersistentChunks().containsKey(new ChunkPos(var6.x >> 4, var6.z >> 4));
+        boolean isForced = ForgeChunkManager.isChunkForced(this, var6.x >> 4, var6.z >> 4);
         int var7 = isForced ? 0 : 8;
         if (this.immediateUpdates) {
             if (this.isRegionLoaded(var6.x - var7, var6.y - var7, var6.z - var7, var6.x + var7, var6.y + var7, var6.z + var7)) {
@@ -220,16 +263,53 @@ public abstract class ServerWorldMixin extends World implements IServerWorld {
                 }
             }
         } else if (this.isRegionLoaded(par1 - var7, par2 - var7, par3 - var7, par1 + var7, par2 + var7, par3 + var7)) {
-            if (par4 > 0) {
-                var6.setTime((long)par5 + this.levelProperties.getTimeOfDay());
-            }
+            this.scheduledTicks.schedule(par1, par2, par3, par4, par4 > 0 ? (long)par5 + this.levelProperties.getTimeOfDay() : 0L);
+        }
 
-            if (!this.entityNavigations.contains(var6)) {
-                this.entityNavigations.add(var6);
-                this.field_2812.add(var6);
-            }
+    }
+
+    /**
+     * @author Minecraft
+     * @reason keep pending ticks in the timing wheel
+     */
+    @Overwrite
+    public void method_3653(int par1, int par2, int par3, int par4, int par5) {
+        this.scheduledTicks.schedule(par1, par2, par3, par4, par4 > 0 ? (long)par5 + this.levelProperties.getTimeOfDay() : 0L);
+    }
+
+    /**
+     * @author Minecraft
+     * @reason keep pending ticks in the timing wheel
+     */
+    @Overwrite
+    public List method_3643(Chunk par1Chunk, boolean par2) {
+        List<ScheduledTickWheel.Tick> ticks = this.scheduledTicks.getTicksInChunk(par1Chunk.chunkX, par1Chunk.chunkZ, par2);
+        if (ticks == null) {
+            return null;
+        }
+
+        ArrayList var3 = new ArrayList<>(ticks.size());
+        for (ScheduledTickWheel.Tick tick : ticks) {
+            var3.add(new TickableEntry(tick.x, tick.y, tick.z, tick.blockId).setTime(tick.getTime()));
+        }
+
+        return var3;
+    }
+
+    // The save handler has waited for the file IO thread by now, like it does before clearing RegionIo
+    @Inject(method = "close", at = @At("TAIL"))
+    private void closeRegionFiles(CallbackInfo ci) {
+        RegionStorage storage = RegionStorage.fromConfig();
+        if (storage != null) {
+            storage.close();
         }
+    }
 
+    @Inject(method = "method_2135", at = @At("HEAD"))
+    private void shiftScheduledTicks(long par1, CallbackInfo ci) {
+        long delta = par1 - this.levelProperties.getTimeOfDay();
+        this.scheduledTicks.shiftTimes(delta, par1);
+        ((IWorld)this).shiftTileEntityWakeTimes(delta);
     }
 
     /**
@@ -238,7 +318,7 @@ public abstract class ServerWorldMixin extends World implements IServerWorld {
      */
     @Overwrite
     public void tickEntities() {
-        if (this.playerEntities.isEmpty() && this.getPersistentChunks().isEmpty()) {
+        if (this.playerEntities.isEmpty() && !ForgeChunkManager.hasForcedChunks(this)) {
             if (this.idleTimeout++ >= 60) {
                 return;
             }
@@ -255,34 +335,48 @@ public abstract class ServerWorldMixin extends World implements IServerWorld {
      */
     @Overwrite
     public boolean method_3644(boolean par1) {
-        int var2 = this.field_2812.size();
-        if (var2 != this.entityNavigations.size()) {
-            throw new IllegalStateException("TickNextTick list out of synch");
-        } else {
-            if (var2 > 1000) {
-                var2 = 1000;
+        int var2 = this.scheduledTicks.size();
+        if (var2 > 1000) {
+            var2 = 1000;
+        }
+
+        ChunkTickProfiler chunkProfiler = ((IWorld)this).getChunkTickProfiler();
+        boolean timeTicks = TickBudget.SCHEDULED_TICKS.isLimited() || chunkProfiler != null;
+        long tickNanos = 0L;
+
+        long now = par1 ? Long.MAX_VALUE : this.levelProperties.getTimeOfDay();
+        for(int var3 = 0; var3 < var2; ++var3) {
+            // Ticks left over stay queued and, being the oldest, run first next tick
+            if (!par1 && TickBudget.SCHEDULED_TICKS.isSpent(tickNanos)) {
+                break;
             }
 
-            for(int var3 = 0; var3 < var2; ++var3) {
-                TickableEntry var4 = (TickableEntry)this.field_2812.first();
-                if (!par1 && var4.time > this.levelProperties.getTimeOfDay()) {
-                    break;
-                }
+            ScheduledTickWheel.Tick var4 = this.scheduledTicks.poll(now);
+            if (var4 == null) {
+                break;
+            }
 
-                this.field_2812.remove(var4);
-                this.entityNavigations.remove(var4);
-                boolean isForced = this.getPersistentChunks().containsKey(new ChunkPos(var4.x >> 4, var4.z >> 4));
-                int var5 = isForced ? 0 : 8;
-                if (this.isRegionLoaded(var4.x - var5, var4.y - var5, var4.z - var5, var4.x + var5, var4.y + var5, var4.z + var5)) {
-                    int var6 = this.getBlock(var4.x, var4.y, var4.z);
-                    if (var6 == var4.blockId && var6 > 0) {
+            boolean isForced = ForgeChunkManager.isChunkForced(this, var4.x >> 4, var4.z >> 4);
+            int var5 = isForced ? 0 : 8;
+            if (this.isRegionLoaded(var4.x - var5, var4.y - var5, var4.z - var5, var4.x + var5, var4.y + var5, var4.z + var5)) {
+                int var6 = this.getBlock(var4.x, var4.y, var4.z);
+                if (var6 == var4.blockId && var6 > 0) {
+                    if (!timeTicks) {
+                        Block.BLOCKS[var6].onTick(this, var4.x, var4.y, var4.z, this.random);
+                    } else {
+                        long start = System.nanoTime();
                         Block.BLOCKS[var6].onTick(this, var4.x, var4.y, var4.z, this.random);
+                        long time = System.nanoTime() - start;
+                        tickNanos += time;
+                        if (chunkProfiler != null) {
+                            chunkProfiler.record(var4.x >> 4, var4.z >> 4, TickBudget.SCHEDULED_TICKS, time);
+                        }
                     }
                 }
             }
-
-            return !this.field_2812.isEmpty();
         }
+
+        return !this.scheduledTicks.isEmpty();
     }
 
     /**
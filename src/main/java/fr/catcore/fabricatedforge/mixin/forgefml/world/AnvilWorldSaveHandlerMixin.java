@@ -1,5 +1,9 @@
 package fr.catcore.fabricatedforge.mixin.forgefml.world;
 
+import cpw.mods.fml.common.FMLLog;
+import fr.catcore.fabricatedforge.mixininterface.IThreadedAnvilChunkStorage;
+import fr.catcore.fabricatedforge.util.ChunkCodec;
+import fr.catcore.fabricatedforge.util.RegionStorage;
 import net.minecraft.world.AnvilWorldSaveHandler;
 import net.minecraft.world.WorldSaveHandler;
 import net.minecraft.world.chunk.ChunkStorage;
@@ -24,12 +28,24 @@ public class AnvilWorldSaveHandlerMixin extends WorldSaveHandler {
     @Overwrite
     public ChunkStorage getChunkWriter(Dimension par1WorldProvider) {
         File var2 = this.method_198();
+        ThreadedAnvilChunkStorage var4;
         if (par1WorldProvider.getSaveFolder() != null) {
             File var3 = new File(var2, par1WorldProvider.getSaveFolder());
             var3.mkdirs();
-            return new ThreadedAnvilChunkStorage(var3);
+            var4 = new ThreadedAnvilChunkStorage(var3);
         } else {
-            return new ThreadedAnvilChunkStorage(var2);
+            var4 = new ThreadedAnvilChunkStorage(var2);
         }
+
+        RegionStorage var5 = RegionStorage.fromConfig();
+        ChunkCodec var6 = ChunkCodec.fromConfig(par1WorldProvider.dimensionType);
+        if (var5 == null && var6 != ChunkCodec.DEFLATE) {
+            FMLLog.warning("Chunk codec %s needs -Dforge.regionStorage=mapped, dimension %d keeps deflate", var6.getName(), par1WorldProvider.dimensionType);
+        } else if (var5 != null && !var6.isVanillaReadable()) {
+            FMLLog.warning("Chunk codec %s for dimension %d writes chunks vanilla can't read, the world can only be opened with this mod from now on", var6.getName(), par1WorldProvider.dimensionType);
+        }
+
+        ((IThreadedAnvilChunkStorage)var4).setRegionStorage(var5, var6);
+        return var4;
     }
 }
@@ -6,6 +6,8 @@ import fr.catcore.fabricatedforge.mixininterface.IBlockEntity;
 import fr.catcore.fabricatedforge.mixininterface.IChunk;
 import fr.catcore.fabricatedforge.mixininterface.IWorld;
 import fr.catcore.fabricatedforge.forged.ReflectionUtils;
+import fr.catcore.fabricatedforge.util.EntityClassCounter;
+import fr.catcore.fabricatedforge.util.SleepingBlockEntities;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.block.Block;
@@ -23,13 +25,18 @@ import net.minecraft.world.chunk.ChunkProvider;
 import net.minecraft.world.dimension.Dimension;
 import net.minecraft.world.level.LevelInfo;
 import net.minecraft.world.level.LevelProperties;
+import net.minecraftforge.common.ChunkTickProfiler;
 import net.minecraftforge.common.ForgeChunkManager;
 import net.minecraftforge.common.ForgeDirection;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.common.TickBudget;
 import net.minecraftforge.event.entity.EntityEvent;
 import net.minecraftforge.event.entity.EntityJoinWorldEvent;
 import net.minecraftforge.event.entity.PlaySoundAtEntityEvent;
 import org.spongepowered.asm.mixin.*;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 import java.util.*;
 
@@ -125,6 +132,14 @@ public abstract class WorldMixin implements BlockView, IWorld {
     @Shadow public boolean isClient;
     @Mutable
     @Shadow @Final protected SaveHandler saveHandler;
+    @Unique
+    private final EntityClassCounter entityCounter = new EntityClassCounter();
+    @Unique
+    private final SleepingBlockEntities sleepingBlockEntities = new SleepingBlockEntities();
+    @Unique
+    private final List<BlockEntity> dueBlockEntities = new ArrayList<>();
+    @Unique
+    private final ChunkTickProfiler chunkTickProfiler = ChunkTickProfiler.isEnabled() ? new ChunkTickProfiler() : null;
     @Unique // Public
     private static double MAX_ENTITY_RADIUS = ReflectionUtils.World_MAX_ENTITY_RADIUS;
 
@@ -444,11 +459,12 @@ public abstract class WorldMixin implements BlockView, IWorld {
                 this.updateSleepingStatus();
             }
 
-            if (!var4 && MinecraftForge.EVENT_BUS.post(new EntityJoinWorldEvent(par1Entity, (World)(Object) this))) {
+            if (!var4 && MinecraftForge.EVENT_BUS.hasListeners(EntityJoinWorldEvent.class) && MinecraftForge.EVENT_BUS.post(new EntityJoinWorldEvent(par1Entity, (World)(Object) this))) {
                 return false;
             } else {
                 this.getChunk(var2, var3).addEntity(par1Entity);
                 this.loadedEntities.add(par1Entity);
+                this.entityCounter.add(par1Entity);
                 this.onEntitySpawned(par1Entity);
                 return true;
             }
@@ -642,7 +658,22 @@ public abstract class WorldMixin implements BlockView, IWorld {
         }
 
         this.profiler.swap("remove");
-        this.loadedEntities.removeAll(this.unloadedEntities);
+        if (!this.unloadedEntities.isEmpty()) {
+            // A hashed view makes this a single pass over loadedEntities instead of one scan of unloadedEntities per entity,
+            // and only entities that were actually loaded come off the class counts
+            Set var9 = new HashSet(this.unloadedEntities);
+            int var10 = 0;
+            for (int var11 = 0; var11 < this.loadedEntities.size(); ++var11) {
+                Object var12 = this.loadedEntities.get(var11);
+                if (var9.contains(var12)) {
+                    this.entityCounter.remove(var12);
+                } else {
+                    this.loadedEntities.set(var10++, var12);
+                }
+            }
+            this.loadedEntities.subList(var10, this.loadedEntities.size()).clear();
+        }
+
         Iterator var5 = this.unloadedEntities.iterator();
 
         int var3;
@@ -666,6 +697,13 @@ public abstract class WorldMixin implements BlockView, IWorld {
         this.unloadedEntities.clear();
         this.profiler.swap("regular");
 
+        // Budgets and the chunk profiler are for server worlds; a client world runs whatever the server sent
+        ChunkTickProfiler chunkProfiler = this.isClient ? null : this.chunkTickProfiler;
+        boolean budgetEntities = !this.isClient && TickBudget.ENTITIES.isLimited();
+        boolean timeEntities = budgetEntities || chunkProfiler != null;
+        long entityNanos = 0L;
+        int deferEntitiesFrom = -1;
+
         for(var1 = 0; var1 < this.loadedEntities.size(); ++var1) {
             var2 = (Entity)this.loadedEntities.get(var1);
             if (var2.vehicle != null) {
@@ -679,7 +717,24 @@ public abstract class WorldMixin implements BlockView, IWorld {
 
             this.profiler.push("tick");
             if (!var2.removed) {
-                this.checkChunk(var2);
+                boolean player = var2 instanceof PlayerEntity;
+                if (deferEntitiesFrom < 0 && budgetEntities && !player && entityNanos > 0L && TickBudget.ENTITIES.isSpent(entityNanos)) {
+                    deferEntitiesFrom = var1;
+                }
+
+                if (!timeEntities) {
+                    this.checkChunk(var2);
+                } else if (deferEntitiesFrom < 0 || player) {
+                    var3 = MathHelper.floor(var2.x / 16.0);
+                    var4 = MathHelper.floor(var2.z / 16.0);
+                    long start = System.nanoTime();
+                    this.checkChunk(var2);
+                    long time = System.nanoTime() - start;
+                    entityNanos += time;
+                    if (chunkProfiler != null) {
+                        chunkProfiler.record(var3, var4, TickBudget.ENTITIES, time);
+                    }
+                }
             }
 
             this.profiler.pop();
@@ -692,32 +747,77 @@ public abstract class WorldMixin implements BlockView, IWorld {
                 }
 
                 this.loadedEntities.remove(var1--);
+                this.entityCounter.remove(var2);
                 this.onEntityRemoved(var2);
             }
 
             this.profiler.pop();
         }
 
+        if (deferEntitiesFrom > 0) {
+            // Entities that ran out of budget go first next tick
+            Collections.rotate(this.loadedEntities, -deferEntitiesFrom);
+        }
+
         this.profiler.swap("tileEntities");
+        if (!this.sleepingBlockEntities.isEmpty()) {
+            this.sleepingBlockEntities.pollDue(this.getTimeOfDay(), this.dueBlockEntities);
+            for (BlockEntity tile : this.dueBlockEntities) {
+                ((IBlockEntity)tile).wake();
+            }
+            this.dueBlockEntities.clear();
+        }
+
+        boolean budgetTiles = !this.isClient && TickBudget.TILE_ENTITIES.isLimited();
+        boolean timeTiles = budgetTiles || chunkProfiler != null;
+        long tileNanos = 0L;
+        int keptTiles = 0;
+        int deferTilesFrom = -1;
         this.iteratingTickingBlockEntities = true;
-        var5 = this.blockEntities.iterator();
 
-        while(var5.hasNext()) {
-            BlockEntity var6 = (BlockEntity)var5.next();
+        // Tiles that stay are compacted to the front as we go and the rest cut off in one go afterwards,
+        // instead of an ArrayList shift for every tile that goes to sleep or is removed
+        for (int var11 = 0; var11 < this.blockEntities.size(); ++var11) {
+            BlockEntity var6 = (BlockEntity)this.blockEntities.get(var11);
+            if (((IBlockEntity)var6).isSleeping() && !var6.isRemoved()) {
+                this.sleepingBlockEntities.add(var6, ((IBlockEntity)var6).getWakeTime());
+                continue;
+            }
+
             if (!var6.isRemoved() && var6.hasWorld() && this.isPosLoaded(var6.x, var6.y, var6.z)) {
-                var6.method_545();
+                if (deferTilesFrom < 0 && budgetTiles && tileNanos > 0L && TickBudget.TILE_ENTITIES.isSpent(tileNanos)) {
+                    deferTilesFrom = keptTiles;
+                }
+
+                if (!timeTiles) {
+                    var6.method_545();
+                } else if (deferTilesFrom < 0) {
+                    long start = System.nanoTime();
+                    var6.method_545();
+                    long time = System.nanoTime() - start;
+                    tileNanos += time;
+                    if (chunkProfiler != null) {
+                        chunkProfiler.record(var6.x >> 4, var6.z >> 4, TickBudget.TILE_ENTITIES, time);
+                    }
+                }
             }
 
             if (var6.isRemoved()) {
-                var5.remove();
                 if (this.isChunkLoaded(var6.x >> 4, var6.z >> 4)) {
                     Chunk var8 = this.getChunk(var6.x >> 4, var6.z >> 4);
                     if (var8 != null) {
                         ((IChunk)var8).cleanChunkBlockTileEntity(var6.x & 15, var6.y, var6.z & 15);
                     }
                 }
+            } else {
+                this.blockEntities.set(keptTiles++, var6);
             }
         }
+        this.blockEntities.subList(keptTiles, this.blockEntities.size()).clear();
+
+        if (deferTilesFrom > 0) {
+            Collections.rotate(this.blockEntities, -deferTilesFrom);
+        }
 
         this.iteratingTickingBlockEntities = false;
         Iterator var7;
@@ -726,21 +826,24 @@ public abstract class WorldMixin implements BlockView, IWorld {
 
             while(var7.hasNext()) {
                 Object tile = var7.next();
+                this.sleepingBlockEntities.remove((BlockEntity)tile);
                 ((IBlockEntity)tile).onChunkUnload();
             }
 
-            this.blockEntities.removeAll(this.unloadedBlockEntities);
+            this.blockEntities.removeAll(new HashSet(this.unloadedBlockEntities));
             this.unloadedBlockEntities.clear();
         }
 
         this.profiler.swap("pendingTileEntities");
         if (!this.pendingBlockEntities.isEmpty()) {
+            Set loaded = Collections.newSetFromMap(new IdentityHashMap());
+            loaded.addAll(this.blockEntities);
             var7 = this.pendingBlockEntities.iterator();
 
             while(var7.hasNext()) {
                 BlockEntity var9 = (BlockEntity)var7.next();
                 if (!var9.isRemoved()) {
-                    if (!this.blockEntities.contains(var9)) {
+                    if (loaded.add(var9)) {
                         this.blockEntities.add(var9);
                     }
                 } else if (this.isChunkLoaded(var9.x >> 4, var9.z >> 4)) {
@@ -781,10 +884,10 @@ public abstract class WorldMixin implements BlockView, IWorld {
     public void checkChunk(Entity par1Entity, boolean par2) {
         int var3 = MathHelper.floor(par1Entity.x);
         int var4 = MathHelper.floor(par1Entity.z);
-        boolean isForced = this.getPersistentChunks().containsKey(new ChunkPos(var3 >> 4, var4 >> 4));
+        boolean isForced = ForgeChunkManager.isChunkForced((World)(Object)this, var3 >> 4, var4 >> 4);
         int var5 = isForced ? 0 : 32;
         boolean canUpdate = !par2 || this.isRegionLoaded(var3 - var5, 0, var4 - var5, var3 + var5, 0, var4 + var5);
-        if (!canUpdate) {
+        if (!canUpdate && MinecraftForge.EVENT_BUS.hasListeners(EntityEvent.CanUpdate.class)) {
             EntityEvent.CanUpdate event = new EntityEvent.CanUpdate(par1Entity);
             MinecraftForge.EVENT_BUS.post(event);
             canUpdate = event.canUpdate;
@@ -1448,16 +1551,27 @@ public abstract class WorldMixin implements BlockView, IWorld {
         return var7;
     }
 
+    /**
+     * @author Minecraft
+     * @reason use the running per-class counts
+     */
+    @Overwrite
+    public int getPersistentEntityCount(Class par1Class) {
+        return this.entityCounter.get(par1Class, this.loadedEntities);
+    }
+
     /**
      * @author Minecraft Forge
      * @reason none
      */
     @Overwrite
     public void loadEntities(List par1List) {
+        boolean fireJoin = MinecraftForge.EVENT_BUS.hasListeners(EntityJoinWorldEvent.class);
         for (Object o : par1List) {
             Entity entity = (Entity) o;
-            if (!MinecraftForge.EVENT_BUS.post(new EntityJoinWorldEvent(entity, (World)(Object) this))) {
+            if (!fireJoin || !MinecraftForge.EVENT_BUS.post(new EntityJoinWorldEvent(entity, (World)(Object) this))) {
                 this.loadedEntities.add(entity);
+                this.entityCounter.add(entity);
                 this.onEntitySpawned(entity);
             }
         }
@@ -1556,8 +1670,9 @@ public abstract class WorldMixin implements BlockView, IWorld {
             }
         }
 
-        if (!this.loadedEntities.contains(par1Entity) && !MinecraftForge.EVENT_BUS.post(new EntityJoinWorldEvent(par1Entity, (World)(Object) this))) {
+        if (!this.loadedEntities.contains(par1Entity) && (!MinecraftForge.EVENT_BUS.hasListeners(EntityJoinWorldEvent.class) || !MinecraftForge.EVENT_BUS.post(new EntityJoinWorldEvent(par1Entity, (World)(Object) this)))) {
             this.loadedEntities.add(par1Entity);
+            this.entityCounter.add(par1Entity);
         }
 
     }
@@ -1622,6 +1737,52 @@ public abstract class WorldMixin implements BlockView, IWorld {
 
     }
 
+    @Override
+    public ChunkTickProfiler getChunkTickProfiler() {
+        return this.chunkTickProfiler;
+    }
+
+    @Override
+    public void wakeTileEntity(BlockEntity entity) {
+        if (this.sleepingBlockEntities.remove(entity) && !entity.isRemoved()) {
+            this.addTileEntity(entity);
+        }
+    }
+
+    @Override
+    public void shiftTileEntityWakeTimes(long delta) {
+        this.sleepingBlockEntities.shiftTimes(delta);
+        // Ones that went to sleep this tick are only moved to the sleepers on the next one
+        for (Object tile : this.blockEntities) {
+            IBlockEntity sleeper = (IBlockEntity)tile;
+            if (sleeper.isSleeping() && sleeper.getWakeTime() >= 0) {
+                sleeper.sleep(Math.max(sleeper.getWakeTime() + delta, 0L));
+            }
+        }
+    }
+
+    @Inject(method = "updateNeighbors", at = @At("HEAD"))
+    private void wakeNeighborTileEntities(int x, int y, int z, int block, CallbackInfo ci) {
+        if (!this.sleepingBlockEntities.isEmpty()) {
+            // The changed position itself too, so a removed or replaced block entity is dropped
+            this.wakeTileEntityAt(x, y, z);
+            this.wakeTileEntityAt(x - 1, y, z);
+            this.wakeTileEntityAt(x + 1, y, z);
+            this.wakeTileEntityAt(x, y - 1, z);
+            this.wakeTileEntityAt(x, y + 1, z);
+            this.wakeTileEntityAt(x, y, z - 1);
+            this.wakeTileEntityAt(x, y, z + 1);
+        }
+    }
+
+    @Unique
+    private void wakeTileEntityAt(int x, int y, int z) {
+        BlockEntity tile = this.sleepingBlockEntities.get(x, y, z);
+        if (tile != null) {
+            ((IBlockEntity)tile).wake();
+        }
+    }
+
     @Override
     public boolean isBlockSolidOnSide(int X, int Y, int Z, ForgeDirection side) {
         return this.isBlockSolidOnSide(X, Y, Z, side, false);
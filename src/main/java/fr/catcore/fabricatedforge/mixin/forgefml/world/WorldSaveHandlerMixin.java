@@ -10,6 +10,8 @@ import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.Shadow;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -32,7 +34,7 @@ public class WorldSaveHandlerMixin {
         NbtCompound var3;
         if (var1.exists()) {
             try {
-                var2 = NbtIo.readCompressed(Files.newInputStream(var1.toPath()));
+                var2 = NbtIo.readCompressed(new BufferedInputStream(Files.newInputStream(var1.toPath()), 65536));
                 var3 = var2.getCompound("Data");
                 worldInfo = new LevelProperties(var3);
                 FMLCommonHandler.instance().handleWorldDataLoad((WorldSaveHandler)(Object) this, worldInfo, var2);
@@ -45,7 +47,7 @@ public class WorldSaveHandlerMixin {
         var1 = new File(this.worldDir, "level.dat_old");
         if (var1.exists()) {
             try {
-                var2 = NbtIo.readCompressed(Files.newInputStream(var1.toPath()));
+                var2 = NbtIo.readCompressed(new BufferedInputStream(Files.newInputStream(var1.toPath()), 65536));
                 var3 = var2.getCompound("Data");
                 worldInfo = new LevelProperties(var3);
                 FMLCommonHandler.instance().handleWorldDataLoad((WorldSaveHandler)(Object) this, worldInfo, var2);
@@ -73,7 +75,7 @@ public class WorldSaveHandlerMixin {
             File var5 = new File(this.worldDir, "level.dat_new");
             File var6 = new File(this.worldDir, "level.dat_old");
             File var7 = new File(this.worldDir, "level.dat");
-            NbtIo.writeCompressed(var4, Files.newOutputStream(var5.toPath()));
+            NbtIo.writeCompressed(var4, new BufferedOutputStream(Files.newOutputStream(var5.toPath()), 65536));
             if (var6.exists()) {
                 var6.delete();
             }
@@ -108,7 +110,7 @@ public class WorldSaveHandlerMixin {
             File var4 = new File(this.worldDir, "level.dat_new");
             File var5 = new File(this.worldDir, "level.dat_old");
             File var6 = new File(this.worldDir, "level.dat");
-            NbtIo.writeCompressed(var3, Files.newOutputStream(var4.toPath()));
+            NbtIo.writeCompressed(var3, new BufferedOutputStream(Files.newOutputStream(var4.toPath()), 65536));
             if (var5.exists()) {
                 var5.delete();
             }
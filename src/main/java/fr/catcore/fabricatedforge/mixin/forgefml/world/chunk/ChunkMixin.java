@@ -2,7 +2,9 @@ package fr.catcore.fabricatedforge.mixin.forgefml.world.chunk;
 
 import fr.catcore.fabricatedforge.mixininterface.IBlock;
 import fr.catcore.fabricatedforge.mixininterface.IChunk;
+import fr.catcore.fabricatedforge.util.ChunkNbtReader;
 import fr.catcore.fabricatedforge.forged.ReflectionUtils;
+import fr.catcore.fabricatedforge.util.EntityClassIndex;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.block.Block;
@@ -23,6 +25,7 @@ import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
@@ -70,6 +73,17 @@ public abstract class ChunkMixin implements IChunk {
 
     private byte[] par2ArrayOfByteCache;
 
+    @Unique
+    private EntityClassIndex<Entity>[] entityIndex;
+
+    @Inject(method = "<init>(Lnet/minecraft/world/World;II)V", at = @At("RETURN"))
+    private void createEntityLists(World world, int chunkX, int chunkZ, CallbackInfo ci) {
+        // Lists that count their changes, so the entity index can tell when it is stale
+        for (int i = 0; i < this.entities.length; ++i) {
+            this.entities[i] = new EntityClassIndex.Section();
+        }
+    }
+
     @Inject(method = "<init>(Lnet/minecraft/world/World;[BII)V", at = @At(value = "CONSTANT", args = "intValue=256"))
     private void fmlCtrTop(World bs, byte[] i, int j, int par4, CallbackInfo ci) {
         this.par2ArrayOfByteCache = new byte[i.length];
@@ -366,12 +380,50 @@ public abstract class ChunkMixin implements IChunk {
             var4 = this.entities.length - 1;
         }
 
-        MinecraftForge.EVENT_BUS.post(new EntityEvent.EnteringChunk(par1Entity, this.chunkX, this.chunkZ, par1Entity.chunkX, par1Entity.chunkZ));
+        if (MinecraftForge.EVENT_BUS.hasListeners(EntityEvent.EnteringChunk.class)) {
+            MinecraftForge.EVENT_BUS.post(new EntityEvent.EnteringChunk(par1Entity, this.chunkX, this.chunkZ, par1Entity.chunkX, par1Entity.chunkZ));
+        }
+
         par1Entity.updateNeeded = true;
         par1Entity.chunkX = this.chunkX;
         par1Entity.chunkY = var4;
         par1Entity.chunkZ = this.chunkZ;
         this.entities[var4].add(par1Entity);
+        this.getEntityIndex(var4).add(par1Entity, this.entities[var4]);
+    }
+
+    /**
+     * @author Minecraft
+     * @reason keep the class index in sync
+     */
+    @Overwrite
+    public void removeEntity(Entity entity, int i) {
+        if (i < 0) {
+            i = 0;
+        }
+
+        if (i >= this.entities.length) {
+            i = this.entities.length - 1;
+        }
+
+        if (this.entities[i].remove(entity)) {
+            this.getEntityIndex(i).remove(entity, this.entities[i]);
+        }
+    }
+
+    @Unique
+    @SuppressWarnings("unchecked")
+    private EntityClassIndex<Entity> getEntityIndex(int section) {
+        if (this.entityIndex == null) {
+            this.entityIndex = new EntityClassIndex[this.entities.length];
+        }
+
+        EntityClassIndex<Entity> index = this.entityIndex[section];
+        if (index == null) {
+            index = this.entityIndex[section] = new EntityClassIndex<Entity>();
+        }
+
+        return index;
     }
 
     /**
@@ -432,6 +484,14 @@ public abstract class ChunkMixin implements IChunk {
         par4TileEntity.x = this.chunkX * 16 + par1;
         par4TileEntity.y = par2;
         par4TileEntity.z = this.chunkZ * 16 + par3;
+        ChunkSection[] var6 = ChunkNbtReader.getBuildingSections(this.world, this.chunkX, this.chunkZ);
+        if (var6 != null) {
+            // Loaded from streamed NBT: getChunk has only just set the sections, to an empty array
+            for (int var7 = 0; var7 < var6.length; ++var7) {
+                this.chunkSections[var7] = var6[var7];
+            }
+        }
+
         Block block = Block.BLOCKS[this.getBlock(par1, par2, par3)];
         if (block != null && ((IBlock)block).hasTileEntity(this.getBlockData(par1, par2, par3))) {
             BlockEntity old = (BlockEntity)this.blockEntities.get(var5);
@@ -461,7 +521,9 @@ public abstract class ChunkMixin implements IChunk {
             this.world.loadEntities(var4);
         }
 
-        MinecraftForge.EVENT_BUS.post(new ChunkEvent.Load((Chunk)(Object) this));
+        if (MinecraftForge.EVENT_BUS.hasListeners(ChunkEvent.Load.class)) {
+            MinecraftForge.EVENT_BUS.post(new ChunkEvent.Load((Chunk)(Object) this));
+        }
     }
 
     /**
@@ -486,7 +548,9 @@ public abstract class ChunkMixin implements IChunk {
             this.world.unloadEntities(var4);
         }
 
-        MinecraftForge.EVENT_BUS.post(new ChunkEvent.Unload((Chunk)(Object) this));
+        if (MinecraftForge.EVENT_BUS.hasListeners(ChunkEvent.Unload.class)) {
+            MinecraftForge.EVENT_BUS.post(new ChunkEvent.Unload((Chunk)(Object) this));
+        }
     }
 
     /**
@@ -561,10 +625,12 @@ public abstract class ChunkMixin implements IChunk {
 
         for(int var6 = var4; var6 <= var5; ++var6) {
             List var7 = this.entities[var6];
+            if (var7.isEmpty()) {
+                continue;
+            }
 
-            for (Object o : var7) {
-                Entity var9 = (Entity) o;
-                if (par1Class.isAssignableFrom(var9.getClass()) && var9.boundingBox.intersects(par2AxisAlignedBB)) {
+            for (Entity var9 : this.getEntityIndex(var6).get(par1Class, var7)) {
+                if (var9.boundingBox.intersects(par2AxisAlignedBB)) {
                     par3List.add(var9);
                 }
             }
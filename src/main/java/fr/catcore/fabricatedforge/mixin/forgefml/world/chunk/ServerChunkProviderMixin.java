@@ -2,7 +2,9 @@ package fr.catcore.fabricatedforge.mixin.forgefml.world.chunk;
 
 import cpw.mods.fml.common.registry.GameRegistry;
 import fr.catcore.fabricatedforge.mixininterface.IServerChunkProvider;
+import fr.catcore.fabricatedforge.mixininterface.IThreadedAnvilChunkStorage;
 import fr.catcore.fabricatedforge.mixininterface.IWorld;
+import fr.catcore.fabricatedforge.util.AsyncChunkLoader;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.collection.LongObjectStorage;
 import net.minecraft.util.math.BlockPos;
@@ -13,9 +15,11 @@ import net.minecraft.world.chunk.ChunkStorage;
 import net.minecraft.world.chunk.ServerChunkProvider;
 import net.minecraftforge.common.DimensionManager;
 import net.minecraftforge.common.ForgeChunkManager;
+import net.minecraftforge.common.TickBudget;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 
 import java.util.Iterator;
 import java.util.List;
@@ -46,6 +50,9 @@ public abstract class ServerChunkProviderMixin implements ChunkProvider, IServer
 
     @Shadow private ChunkStorage chunkWriter;
 
+    @Unique
+    private final AsyncChunkLoader asyncLoader = new AsyncChunkLoader();
+
     /**
      * @author Minecraft Forge
      * @reason none
@@ -76,9 +83,18 @@ public abstract class ServerChunkProviderMixin implements ChunkProvider, IServer
         this.chunksToUnload.remove(var3);
         Chunk var5 = (Chunk)this.chunkMap.get(var3);
         if (var5 == null) {
+            // Wanted now, so a load still reading off-thread is finished here instead of when it is
+            // polled, which would load the chunk again had it been unloaded in the meantime
+            AsyncChunkLoader.Load var6 = this.asyncLoader.take(var3);
             var5 = ForgeChunkManager.fetchDormantChunk(var3, this.world);
             if (var5 == null) {
                 var5 = this.method_2129(par1, par2);
+                if (var5 == null && ((IThreadedAnvilChunkStorage)this.chunkWriter).isUnreadable(par1, par2)) {
+                    // A generated chunk would be served to players in place of the saved one, so the load fails instead
+                    throw new IllegalStateException("Chunk " + par1 + "," + par2 + " in dimension " + this.world.dimension.dimensionType + " is stored with an unknown chunk codec, restart the server with the codec it was saved with");
+                }
+            } else if (var6 != null) {
+                ((IThreadedAnvilChunkStorage)this.chunkWriter).discardChunkRead(par1, par2);
             }
 
             if (var5 == null) {
@@ -96,6 +112,9 @@ public abstract class ServerChunkProviderMixin implements ChunkProvider, IServer
             }
 
             var5.decorateChunk(this, this, par1, par2);
+            if (var6 != null) {
+                var6.runCallbacks();
+            }
         }
 
         return var5;
@@ -135,6 +154,7 @@ public abstract class ServerChunkProviderMixin implements ChunkProvider, IServer
      */
     @Overwrite
     public boolean tickChunks() {
+        this.finishAsyncLoads();
         if (!this.world.savingDisabled) {
             Iterator i$ = ((IWorld)this.world).getPersistentChunks().keySet().iterator();
 
@@ -147,6 +167,13 @@ public abstract class ServerChunkProviderMixin implements ChunkProvider, IServer
                 if (!this.chunksToUnload.isEmpty()) {
                     Long var2 = (Long)this.chunksToUnload.iterator().next();
                     Chunk var3 = (Chunk)this.chunkMap.get(var2);
+                    if (var3 == null) {
+                        // Still loading asynchronously, let the load put it back on the unload list
+                        this.asyncLoader.unloadWhenLoaded(var2);
+                        this.chunksToUnload.remove(var2);
+                        continue;
+                    }
+
                     var3.unloadFromWorld();
                     this.method_2128(var3);
                     this.method_2126(var3);
@@ -154,7 +181,7 @@ public abstract class ServerChunkProviderMixin implements ChunkProvider, IServer
                     this.chunkMap.remove(var2);
                     this.chunks.remove(var3);
                     ForgeChunkManager.putDormantChunk(ChunkPos.getIdFromCoords(var3.chunkX, var3.chunkZ), var3);
-                    if (this.chunks.size() == 0 && ForgeChunkManager.getPersistentChunksFor(this.world).size() == 0 && !DimensionManager.shouldLoadSpawn(this.world.dimension.dimensionType)) {
+                    if (this.chunks.size() == 0 && !ForgeChunkManager.hasForcedChunks(this.world) && !DimensionManager.shouldLoadSpawn(this.world.dimension.dimensionType)) {
                         DimensionManager.unloadWorld(this.world.dimension.dimensionType);
                         return this.chunkGenerator.tickChunks();
                     }
@@ -173,4 +200,42 @@ public abstract class ServerChunkProviderMixin implements ChunkProvider, IServer
     public ChunkStorage getChunkWriter() {
         return this.chunkWriter;
     }
+
+    @Override
+    public void loadChunkAsync(int chunkX, int chunkZ, Runnable callback) {
+        long var4 = ChunkPos.getIdFromCoords(chunkX, chunkZ);
+        if (this.asyncLoader.addCallback(var4, callback)) {
+            return;
+        }
+
+        // A dormant chunk is quicker to take back here than to read from disk
+        if (this.chunkMap.get(var4) == null && AsyncChunkLoader.isEnabled() && this.chunkWriter instanceof IThreadedAnvilChunkStorage && !ForgeChunkManager.hasDormantChunk(var4, this.world)) {
+            ((IThreadedAnvilChunkStorage)this.chunkWriter).readChunkDataAsync(chunkX, chunkZ, this.asyncLoader.start(var4, chunkX, chunkZ, callback));
+        } else {
+            this.getOrGenerateChunk(chunkX, chunkZ);
+            if (callback != null) {
+                callback.run();
+            }
+        }
+    }
+
+    @Override
+    public boolean isChunkLoadPending(int chunkX, int chunkZ) {
+        return this.asyncLoader.isPending(ChunkPos.getIdFromCoords(chunkX, chunkZ));
+    }
+
+    // Turns chunk data read off-thread into loaded chunks; what the budget leaves over goes first next tick
+    @Unique
+    private void finishAsyncLoads() {
+        long var1 = System.nanoTime();
+
+        AsyncChunkLoader.Load var3;
+        while (!TickBudget.CHUNK_LOADS.isSpent(System.nanoTime() - var1) && (var3 = this.asyncLoader.poll()) != null) {
+            this.getOrGenerateChunk(var3.chunkX, var3.chunkZ);
+            var3.runCallbacks();
+            if (var3.shouldUnload()) {
+                this.scheduleUnload(var3.chunkX, var3.chunkZ);
+            }
+        }
+    }
 }
@@ -1,12 +1,20 @@
 package fr.catcore.fabricatedforge.mixin.forgefml.world.chunk;
 
+import cpw.mods.fml.common.FMLLog;
+import fr.catcore.fabricatedforge.mixininterface.IChunk;
 import fr.catcore.fabricatedforge.mixininterface.IThreadedAnvilChunkStorage;
+import fr.catcore.fabricatedforge.util.AsyncChunkLoader;
+import fr.catcore.fabricatedforge.util.ChunkCodec;
+import fr.catcore.fabricatedforge.util.ChunkNbtReader;
+import fr.catcore.fabricatedforge.util.ChunkSaveQueue;
+import fr.catcore.fabricatedforge.util.LongObjectMap;
+import fr.catcore.fabricatedforge.util.RegionStorage;
 import net.minecraft.nbt.NbtCompound;
-import net.minecraft.nbt.NbtIo;
 import net.minecraft.util.FileIoThread;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
 import net.minecraft.world.chunk.RegionIo;
 import net.minecraft.world.chunk.ThreadedAnvilChunkStorage;
 import net.minecraft.world.chunk.class_1206;
@@ -17,23 +25,22 @@ import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 @Mixin(ThreadedAnvilChunkStorage.class)
 public abstract class ThreadedAnvilChunkStorageMixin implements IThreadedAnvilChunkStorage {
 
     @Shadow private Object field_4781;
 
-    @Shadow private Set chunksBeingSaved;
-
-    @Shadow private List field_4779;
-
     @Shadow @Final private File saveLocation;
 
     @Shadow protected abstract Chunk getChunk(World world, NbtCompound nbt);
@@ -42,39 +49,103 @@ public abstract class ThreadedAnvilChunkStorageMixin implements IThreadedAnvilCh
 
     @Shadow protected abstract void method_3975(class_1206 arg);
 
+    // Only touched on the server thread; the reads themselves run on the chunk reader threads
+    @Unique
+    private final LongObjectMap<Future<ChunkNbtReader.ChunkData>> pendingReads = new LongObjectMap<Future<ChunkNbtReader.ChunkData>>();
+
+    // Replaces the vanilla list and set of pending saves, guarded by the same lock
+    @Unique
+    private final ChunkSaveQueue saveQueue = new ChunkSaveQueue();
+
+    // Chunks of one region file written per saveNextChunk call, between the IO thread's naps
+    @Unique
+    private static final int SAVE_BATCH_SIZE = 32;
+
+    // Null to go through RegionIo
+    @Unique
+    private RegionStorage regionStorage;
+
+    // Chunks whose payload no codec can read; whatever is generated in their place is never saved
+    @Unique
+    private final Set<Long> unreadableChunks = Collections.synchronizedSet(new HashSet<Long>());
+
+    @Unique
+    private ChunkCodec chunkCodec = ChunkCodec.DEFLATE;
+
     /**
      * @author Minecraft Forge
      * @reason none
      */
     @Overwrite
     public Chunk loadChunk(World par1World, int par2, int par3) throws IOException {
-        NbtCompound var4 = null;
-        ChunkPos var5 = new ChunkPos(par2, par3);
-        Object var6 = this.field_4781;
+        ChunkNbtReader.ChunkData var4 = null;
+        boolean var5 = false;
+        Future<ChunkNbtReader.ChunkData> var6 = this.pendingReads.remove(ChunkPos.getIdFromCoords(par2, par3));
+        if (var6 != null) {
+            try {
+                var4 = AsyncChunkLoader.join(var6);
+                var5 = true;
+            } catch (IOException var7) {
+                // Most likely the region file was closed under the reader, try again here
+            }
+        }
+
+        if (!var5) {
+            var4 = this.readChunkData(par2, par3);
+        }
+
+        return var4 == null ? null : this.loadChunkData(par1World, par2, par3, var4);
+    }
+
+    @Override
+    public ChunkNbtReader.ChunkData readChunkData(int chunkX, int chunkZ) throws IOException {
         synchronized(this.field_4781) {
-            if (this.chunksBeingSaved.contains(var5)) {
-                Iterator var7 = this.field_4779.iterator();
-
-                while(var7.hasNext()) {
-                    class_1206 var8 = (class_1206)var7.next();
-                    if (var8.field_4783.equals(var5)) {
-                        var4 = var8.field_4784;
-                        break;
-                    }
-                }
+            NbtCompound var3 = this.saveQueue.get(chunkX, chunkZ);
+            if (var3 != null) {
+                return new ChunkNbtReader.ChunkData(var3, null);
             }
         }
 
-        if (var4 == null) {
-            DataInputStream var11 = RegionIo.read(this.saveLocation, par2, par3);
-            if (var11 == null) {
-                return null;
+        DataInputStream var7;
+        try {
+            var7 = this.regionStorage != null ? this.regionStorage.read(this.saveLocation, chunkX, chunkZ) : RegionIo.read(this.saveLocation, chunkX, chunkZ);
+        } catch (ChunkCodec.UnknownVersionException var8) {
+            if (this.unreadableChunks.add(ChunkPos.getIdFromCoords(chunkX, chunkZ))) {
+                FMLLog.warning("%s, it can't be loaded until the server restarts with its codec", var8.getMessage());
             }
+            throw var8;
+        }
+
+        return var7 == null ? null : ChunkNbtReader.read(var7);
+    }
+
+    @Override
+    public boolean isUnreadable(int chunkX, int chunkZ) {
+        return this.unreadableChunks.contains(ChunkPos.getIdFromCoords(chunkX, chunkZ));
+    }
 
-            var4 = NbtIo.read(var11);
+    @Override
+    public NbtCompound getPendingChunkData(int chunkX, int chunkZ) {
+        synchronized(this.field_4781) {
+            return this.saveQueue.get(chunkX, chunkZ);
         }
+    }
 
-        return this.validateChunk(par1World, par2, par3, var4);
+    @Override
+    public void readChunkDataAsync(int chunkX, int chunkZ, Runnable onDone) {
+        long var4 = ChunkPos.getIdFromCoords(chunkX, chunkZ);
+        Future<ChunkNbtReader.ChunkData> var6 = this.pendingReads.put(var4, AsyncChunkLoader.read(this, chunkX, chunkZ, onDone));
+        if (var6 != null) {
+            var6.cancel(false);
+        }
+    }
+
+    @Override
+    public void discardChunkRead(int chunkX, int chunkZ) {
+        Future<ChunkNbtReader.ChunkData> var3 = this.pendingReads.remove(ChunkPos.getIdFromCoords(chunkX, chunkZ));
+        if (var3 != null) {
+            var3.cancel(false);
+        }
     }
 
     /**
@@ -83,26 +154,56 @@ public abstract class ThreadedAnvilChunkStorageMixin implements IThreadedAnvilCh
      */
     @Overwrite
     public Chunk validateChunk(World par1World, int par2, int par3, NbtCompound par4NBTTagCompound) {
+        return this.loadChunkData(par1World, par2, par3, new ChunkNbtReader.ChunkData(par4NBTTagCompound, null));
+    }
+
+    @Override
+    public Chunk loadChunkData(World par1World, int par2, int par3, ChunkNbtReader.ChunkData par4ChunkData) {
+        NbtCompound par4NBTTagCompound = par4ChunkData.getRoot();
         if (!par4NBTTagCompound.contains("Level")) {
             System.out.println("Chunk file at " + par2 + "," + par3 + " is missing level data, skipping");
             return null;
-        } else if (!par4NBTTagCompound.getCompound("Level").contains("Sections")) {
+        } else if (!par4ChunkData.hasSections()) {
             System.out.println("Chunk file at " + par2 + "," + par3 + " is missing block data, skipping");
             return null;
         } else {
-            Chunk var5 = this.getChunk(par1World, par4NBTTagCompound.getCompound("Level"));
+            // Streamed sections never made it into the compound, so they are handed to the chunk
+            // before getChunk adds its tile entities, which need the blocks under them
+            ChunkSection[] var6 = par4ChunkData.getSections();
+            Chunk var5 = this.buildChunk(par1World, par4NBTTagCompound.getCompound("Level"), var6);
             if (!var5.isChunkEqual(par2, par3)) {
                 System.out.println("Chunk file at " + par2 + "," + par3 + " is in the wrong location; relocating. (Expected " + par2 + ", " + par3 + ", got " + var5.chunkX + ", " + var5.chunkZ + ")");
                 par4NBTTagCompound.putInt("xPos", par2);
                 par4NBTTagCompound.putInt("zPos", par3);
-                var5 = this.getChunk(par1World, par4NBTTagCompound.getCompound("Level"));
+                var5 = this.buildChunk(par1World, par4NBTTagCompound.getCompound("Level"), var6);
+            }
+
+            // A chunk without tile entities never picked the sections up
+            if (var6 != null) {
+                for (int var7 = 0; var7 < var6.length; ++var7) {
+                    ((IChunk)var5).setChunkSection(var7, var6[var7]);
+                }
+            }
+
+            if (MinecraftForge.EVENT_BUS.hasListeners(ChunkDataEvent.Load.class)) {
+                MinecraftForge.EVENT_BUS.post(new ChunkDataEvent.Load(var5, par4ChunkData.materialize()));
             }
 
-            MinecraftForge.EVENT_BUS.post(new ChunkDataEvent.Load(var5, par4NBTTagCompound));
             return var5;
         }
     }
 
+    // Tagged with the position getChunk will give the chunk, so only that chunk picks the sections up
+    @Unique
+    private Chunk buildChunk(World world, NbtCompound level, ChunkSection[] sections) {
+        ChunkNbtReader.Build build = ChunkNbtReader.beginBuild(world, level.getInt("xPos"), level.getInt("zPos"), sections);
+        try {
+            return this.getChunk(world, level);
+        } finally {
+            ChunkNbtReader.endBuild(build);
+        }
+    }
+
     /**
      * @author Minecraft Forge
      * @reason none
@@ -110,6 +211,9 @@ public abstract class ThreadedAnvilChunkStorageMixin implements IThreadedAnvilCh
     @Overwrite
     public void writeChunk(World par1World, Chunk par2Chunk) throws WorldSaveException, IOException {
         par1World.readSaveLock();
+        if (this.isUnreadable(par2Chunk.chunkX, par2Chunk.chunkZ)) {
+            return;
+        }
 
         try {
             NbtCompound var3 = new NbtCompound();
@@ -130,19 +234,8 @@ public abstract class ThreadedAnvilChunkStorageMixin implements IThreadedAnvilCh
      */
     @Overwrite
     public void registerChunkChecker(ChunkPos par1ChunkCoordIntPair, NbtCompound par2NBTTagCompound) {
-        Object var3 = this.field_4781;
         synchronized(this.field_4781) {
-            if (this.chunksBeingSaved.contains(par1ChunkCoordIntPair)) {
-                for(int var4 = 0; var4 < this.field_4779.size(); ++var4) {
-                    if (((class_1206)this.field_4779.get(var4)).field_4783.equals(par1ChunkCoordIntPair)) {
-                        this.field_4779.set(var4, new class_1206(par1ChunkCoordIntPair, par2NBTTagCompound));
-                        return;
-                    }
-                }
-            }
-
-            this.field_4779.add(new class_1206(par1ChunkCoordIntPair, par2NBTTagCompound));
-            this.chunksBeingSaved.add(par1ChunkCoordIntPair);
+            this.saveQueue.put(par1ChunkCoordIntPair.x, par1ChunkCoordIntPair.z, par2NBTTagCompound);
             FileIoThread.INSTANCE.registerCallback((ThreadedAnvilChunkStorage)(Object) this);
         }
     }
@@ -153,30 +246,53 @@ public abstract class ThreadedAnvilChunkStorageMixin implements IThreadedAnvilCh
      */
     @Overwrite
     public boolean saveNextChunk() {
-        class_1206 var1 = null;
-        Object var2 = this.field_4781;
+        List<ChunkSaveQueue.Entry> var1;
         synchronized(this.field_4781) {
-            if (this.field_4779.isEmpty()) {
+            if (this.saveQueue.isEmpty()) {
                 return false;
             }
 
-            var1 = (class_1206)this.field_4779.remove(0);
-            this.chunksBeingSaved.remove(var1.field_4783);
+            var1 = this.saveQueue.pollBatch(SAVE_BATCH_SIZE);
         }
 
-        if (var1 != null) {
-            try {
-                this.method_3975(var1);
-            } catch (Exception var5) {
-                var5.printStackTrace();
+        if (this.regionStorage != null) {
+            this.regionStorage.write(this.saveLocation, var1, this.chunkCodec);
+        } else {
+            for (ChunkSaveQueue.Entry var3 : var1) {
+                try {
+                    this.method_3975(new class_1206(new ChunkPos(var3.chunkX, var3.chunkZ), var3.getData()));
+                } catch (Exception var5) {
+                    var5.printStackTrace();
+                }
             }
         }
 
+        synchronized(this.field_4781) {
+            this.saveQueue.written(var1);
+        }
+
         return true;
     }
 
+    @Override
+    public String getSaveQueueStats(boolean reset) {
+        synchronized(this.field_4781) {
+            String var2 = this.saveQueue.getStats();
+            if (reset) {
+                this.saveQueue.resetStats();
+            }
+            return var2;
+        }
+    }
+
     @Override
     public File getSaveLocation() {
         return this.saveLocation;
     }
+
+    @Override
+    public void setRegionStorage(RegionStorage storage, ChunkCodec codec) {
+        this.regionStorage = storage;
+        this.chunkCodec = codec;
+    }
 }
@@ -12,4 +12,18 @@ public interface IBlockEntity {
     void onChunkUnload();
 
     double getRenderDistance();
+
+    /**
+     * Takes this block entity off the world's tick list until {@link #wake()} is called,
+     * one of its neighbors changes or, if wakeTime is not negative, the world time
+     * reaches wakeTime. Setting the world time moves wakeTime by the same amount.
+     * Meant for machines that are idle most of the time.
+     */
+    void sleep(long wakeTime);
+
+    void wake();
+
+    boolean isSleeping();
+
+    long getWakeTime();
 }
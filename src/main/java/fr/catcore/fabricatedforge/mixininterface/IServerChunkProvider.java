@@ -5,4 +5,13 @@ import net.minecraft.world.chunk.ChunkStorage;
 public interface IServerChunkProvider {
 
     ChunkStorage getChunkWriter();
+
+    /**
+     * Loads the chunk without blocking the server thread on disk reads. The callback, which may be
+     * null, runs on the server thread once the chunk is loaded; right away if it already is.
+     * Anything that asks for the chunk synchronously in the meantime waits for the pending read.
+     */
+    void loadChunkAsync(int chunkX, int chunkZ, Runnable callback);
+
+    boolean isChunkLoadPending(int chunkX, int chunkZ);
 }
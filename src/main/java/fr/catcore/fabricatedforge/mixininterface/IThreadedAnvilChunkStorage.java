@@ -1,7 +1,61 @@
 package fr.catcore.fabricatedforge.mixininterface;
 
+import fr.catcore.fabricatedforge.util.ChunkCodec;
+import fr.catcore.fabricatedforge.util.ChunkNbtReader;
+import fr.catcore.fabricatedforge.util.RegionStorage;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+
 import java.io.File;
+import java.io.IOException;
 
 public interface IThreadedAnvilChunkStorage {
     File getSaveLocation();
+
+    /**
+     * Sets where the region files are read and written, null for RegionIo, and how chunks
+     * written through a region storage are compressed.
+     */
+    void setRegionStorage(RegionStorage storage, ChunkCodec codec);
+
+    /**
+     * Reads the chunk's NBT from the pending saves or the region file, or returns null if it has none.
+     * Safe to call from any thread.
+     */
+    ChunkNbtReader.ChunkData readChunkData(int chunkX, int chunkZ) throws IOException;
+
+    /**
+     * Returns the NBT of the chunk's newest save that hasn't been written yet, or null if there is none.
+     */
+    NbtCompound getPendingChunkData(int chunkX, int chunkZ);
+
+    /**
+     * Builds the chunk from NBT read by {@link #readChunkData} or restored from elsewhere, checking
+     * it as loadChunk does and firing ChunkDataEvent.Load. Returns null if the data is unusable.
+     */
+    Chunk loadChunkData(World world, int chunkX, int chunkZ, ChunkNbtReader.ChunkData data);
+
+    /**
+     * Starts reading the chunk's NBT on a reader thread. The next loadChunk for it waits for
+     * that read instead of reading again. onDone runs on the reader thread when the read ends.
+     */
+    void readChunkDataAsync(int chunkX, int chunkZ, Runnable onDone);
+
+    /**
+     * Drops a read started by {@link #readChunkDataAsync} whose chunk came from elsewhere,
+     * so stale data can't be used by a later load.
+     */
+    void discardChunkRead(int chunkX, int chunkZ);
+
+    /**
+     * Whether a read of the chunk found it stored with a codec this server doesn't know.
+     * Such a chunk must not be generated over, nor saved.
+     */
+    boolean isUnreadable(int chunkX, int chunkZ);
+
+    /**
+     * Describes the pending save queue: its depth and how long chunks wait to be written.
+     */
+    String getSaveQueueStats(boolean reset);
 }
@@ -10,6 +10,7 @@ import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.level.LevelProperties;
+import net.minecraftforge.common.ChunkTickProfiler;
 import net.minecraftforge.common.ForgeChunkManager;
 import net.minecraftforge.common.ForgeDirection;
 
@@ -40,6 +41,15 @@ public interface IWorld {
 
     void addTileEntity(BlockEntity entity);
 
+    void wakeTileEntity(BlockEntity entity);
+
+    /**
+     * Moves the wake times of sleeping block entities by the given number of ticks.
+     */
+    void shiftTileEntityWakeTimes(long delta);
+
+    ChunkTickProfiler getChunkTickProfiler();
+
     boolean isBlockSolidOnSide(int X, int Y, int Z, ForgeDirection side);
 
     boolean isBlockSolidOnSide(int X, int Y, int Z, ForgeDirection side, boolean _default);
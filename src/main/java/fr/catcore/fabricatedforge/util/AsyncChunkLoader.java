@@ -0,0 +1,190 @@
+package fr.catcore.fabricatedforge.util;
+
+import fr.catcore.fabricatedforge.mixininterface.IThreadedAnvilChunkStorage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The chunk loads a server chunk provider has handed to the chunk reader threads. Region
+ * reads and NBT parsing run off-thread; building the chunk, firing ChunkDataEvent.Load and
+ * the callbacks happen on the server thread once a finished load is polled.
+ * Disable with -Dforge.asyncChunkLoading=false, size the pool with -Dforge.chunkLoadThreads.
+ */
+public class AsyncChunkLoader {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("forge.asyncChunkLoading", "true"));
+    private static final int THREADS = Math.max(1, Integer.getInteger("forge.chunkLoadThreads", 2));
+    private static ExecutorService readers;
+    private final LongObjectMap<AsyncChunkLoader.Load> pending = new LongObjectMap<AsyncChunkLoader.Load>();
+    private final Queue<AsyncChunkLoader.Load> finished = new ConcurrentLinkedQueue<AsyncChunkLoader.Load>();
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public boolean isPending(long key) {
+        return this.pending.containsKey(key);
+    }
+
+    /**
+     * Adds a callback to the load already pending for the key, if there is one.
+     *
+     * @return false if no load is pending for the key
+     */
+    public boolean addCallback(long key, Runnable callback) {
+        AsyncChunkLoader.Load load = this.pending.get(key);
+        if (load == null) {
+            return false;
+        }
+
+        load.unload = false;
+        if (callback != null) {
+            load.callbacks.add(callback);
+        }
+        return true;
+    }
+
+    /**
+     * Starts tracking a load. The returned task must be run, from any thread, once the chunk data is read.
+     */
+    public Runnable start(long key, int chunkX, int chunkZ, Runnable callback) {
+        AsyncChunkLoader.Load load = new AsyncChunkLoader.Load(key, chunkX, chunkZ);
+        if (callback != null) {
+            load.callbacks.add(callback);
+        }
+        this.pending.put(key, load);
+        return load;
+    }
+
+    /**
+     * Asks for the chunk to be unloaded again once its pending load has finished, because it was
+     * scheduled for unloading before it got there.
+     */
+    public void unloadWhenLoaded(long key) {
+        AsyncChunkLoader.Load load = this.pending.get(key);
+        if (load != null) {
+            load.unload = true;
+        }
+    }
+
+    /**
+     * Stops tracking the load pending for the key and returns it, or null if there is none. Its
+     * read is left to whoever loads the chunk, and it will never be polled.
+     */
+    public AsyncChunkLoader.Load take(long key) {
+        return this.pending.remove(key);
+    }
+
+    /**
+     * Returns the next load whose data has been read and stops tracking it, or null if there is none.
+     */
+    public AsyncChunkLoader.Load poll() {
+        AsyncChunkLoader.Load load;
+        while ((load = this.finished.poll()) != null) {
+            if (this.pending.get(load.key) == load) {
+                this.pending.remove(load.key);
+                return load;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads and parses the chunk's NBT on a reader thread, running onDone on that thread when the read ends.
+     */
+    public static Future<ChunkNbtReader.ChunkData> read(final IThreadedAnvilChunkStorage storage, final int chunkX, final int chunkZ, final Runnable onDone) {
+        FutureTask<ChunkNbtReader.ChunkData> task = new FutureTask<ChunkNbtReader.ChunkData>(new Callable<ChunkNbtReader.ChunkData>() {
+            public ChunkNbtReader.ChunkData call() throws IOException {
+                return storage.readChunkData(chunkX, chunkZ);
+            }
+        }) {
+            @Override
+            protected void done() {
+                onDone.run();
+            }
+        };
+        getReaders().execute(task);
+        return task;
+    }
+
+    /**
+     * Waits for a read started by {@link #read}.
+     *
+     * @throws IOException if the read failed or was cancelled, in which case the caller should read synchronously
+     */
+    public static ChunkNbtReader.ChunkData join(Future<ChunkNbtReader.ChunkData> read) throws IOException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return read.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Asynchronous chunk read failed", e.getCause());
+        } catch (RuntimeException e) {
+            throw new IOException("Asynchronous chunk read was cancelled", e);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static synchronized ExecutorService getReaders() {
+        if (readers == null) {
+            readers = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(Runnable task) {
+                    Thread thread = new Thread(task, "Chunk Reader #" + this.count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return readers;
+    }
+
+    public class Load implements Runnable {
+        private final long key;
+        public final int chunkX;
+        public final int chunkZ;
+        private final List<Runnable> callbacks = new ArrayList<Runnable>(1);
+        private boolean unload;
+
+        private Load(long key, int chunkX, int chunkZ) {
+            this.key = key;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        public boolean shouldUnload() {
+            return this.unload;
+        }
+
+        public void runCallbacks() {
+            for (Runnable callback : this.callbacks) {
+                callback.run();
+            }
+        }
+
+        // Called by the reader thread, or by whoever cancelled the read
+        public void run() {
+            AsyncChunkLoader.this.finished.add(this);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package fr.catcore.fabricatedforge.util;
+
+import cpw.mods.fml.common.FMLLog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * How a chunk payload in a region file is compressed. The payload's version byte names its
+ * codec, so a region file can mix codecs and each chunk is read with the one it was written
+ * with. Set with -Dforge.chunkCodec and per dimension with -Dforge.chunkCodec.&lt;dimension id&gt;:
+ * "deflate" (what vanilla writes), "deflate:1" to "deflate:9", "fast" for {@link FastLz} or "none".
+ * Only the mapped region storage can write codecs other than deflate, and vanilla can only read
+ * deflate and gzip payloads.
+ */
+public abstract class ChunkCodec {
+    public static final ChunkCodec GZIP = new ChunkCodec.Gzip();
+    public static final ChunkCodec DEFLATE = new ChunkCodec.Deflate(Deflater.DEFAULT_COMPRESSION);
+    public static final ChunkCodec NONE = new ChunkCodec.None();
+    public static final ChunkCodec FAST = new ChunkCodec.Fast();
+    private final byte version;
+    private final String name;
+
+    protected ChunkCodec(int version, String name) {
+        this.version = (byte)version;
+        this.name = name;
+    }
+
+    public byte getVersion() {
+        return this.version;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns whether vanilla's RegionIo can read the payloads this codec writes.
+     */
+    public boolean isVanillaReadable() {
+        return this.version == 1 || this.version == 2;
+    }
+
+    public abstract byte[] compress(byte[] data, int length) throws IOException;
+
+    public abstract InputStream decompress(byte[] data) throws IOException;
+
+    /**
+     * Returns the codec that reads payloads with the given version byte, or null if there is none.
+     */
+    public static ChunkCodec forVersion(byte version) {
+        switch (version) {
+            case 1:
+                return GZIP;
+            case 2:
+                return DEFLATE;
+            case 3:
+                return NONE;
+            case 16:
+                return FAST;
+            default:
+                return null;
+        }
+    }
+
+    public static ChunkCodec fromConfig(int dimension) {
+        String name = System.getProperty("forge.chunkCodec." + dimension, System.getProperty("forge.chunkCodec", "deflate"));
+        ChunkCodec codec = byName(name);
+        if (codec == null) {
+            FMLLog.warning("Unknown chunk codec %s for dimension %d, using deflate", name, dimension);
+            return DEFLATE;
+        }
+        return codec;
+    }
+
+    public static ChunkCodec byName(String name) {
+        if (name.equals("deflate")) {
+            return DEFLATE;
+        } else if (name.equals("fast")) {
+            return FAST;
+        } else if (name.equals("none")) {
+            return NONE;
+        } else if (name.startsWith("deflate:")) {
+            try {
+                int level = Integer.parseInt(name.substring("deflate:".length()));
+                return level >= 1 && level <= 9 ? new ChunkCodec.Deflate(level) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static class Gzip extends ChunkCodec {
+        private Gzip() {
+            super(1, "gzip");
+        }
+
+        public byte[] compress(byte[] data, int length) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(length / 4 + 64);
+            GZIPOutputStream out = new GZIPOutputStream(bytes);
+            out.write(data, 0, length);
+            out.close();
+            return bytes.toByteArray();
+        }
+
+        public InputStream decompress(byte[] data) throws IOException {
+            return new GZIPInputStream(new ByteArrayInputStream(data));
+        }
+    }
+
+    private static class Deflate extends ChunkCodec {
+        private final int level;
+
+        private Deflate(int level) {
+            super(2, level == Deflater.DEFAULT_COMPRESSION ? "deflate" : "deflate:" + level);
+            this.level = level;
+        }
+
+        public byte[] compress(byte[] data, int length) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(length / 4 + 64);
+            Deflater deflater = new Deflater(this.level);
+            try {
+                DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater);
+                out.write(data, 0, length);
+                out.close();
+            } finally {
+                deflater.end();
+            }
+            return bytes.toByteArray();
+        }
+
+        public InputStream decompress(byte[] data) {
+            return new InflaterInputStream(new ByteArrayInputStream(data));
+        }
+    }
+
+    private static class None extends ChunkCodec {
+        private None() {
+            super(3, "none");
+        }
+
+        public byte[] compress(byte[] data, int length) {
+            byte[] copy = new byte[length];
+            System.arraycopy(data, 0, copy, 0, length);
+            return copy;
+        }
+
+        public InputStream decompress(byte[] data) {
+            return new ByteArrayInputStream(data);
+        }
+    }
+
+    private static class Fast extends ChunkCodec {
+        private Fast() {
+            super(16, "fast");
+        }
+
+        public byte[] compress(byte[] data, int length) {
+            return FastLz.compress(data, length);
+        }
+
+        public InputStream decompress(byte[] data) throws IOException {
+            return new ByteArrayInputStream(FastLz.decompress(data, data.length));
+        }
+    }
+
+    /**
+     * Thrown for a payload whose version byte names no codec, which can't be read but mustn't be
+     * overwritten either.
+     */
+    public static class UnknownVersionException extends IOException {
+        public UnknownVersionException(String message) {
+            super(message);
+        }
+    }
+}
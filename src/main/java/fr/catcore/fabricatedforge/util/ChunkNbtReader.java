@@ -0,0 +1,459 @@
+package fr.catcore.fabricatedforge.util;
+
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkNibbleArray;
+import net.minecraft.world.chunk.ChunkSection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Reads a chunk's NBT without building the Level.Sections part of the tree: section arrays are
+ * read straight into the storage of new {@link ChunkSection}s. Every other tag is copied as raw
+ * bytes and parsed in one pass with NbtIo, so entities and tile entities still come out as the
+ * compounds vanilla expects. Disable with -Dforge.streamingChunkNbt=false.
+ */
+public class ChunkNbtReader {
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("forge.streamingChunkNbt", "true"));
+    private static final int TAG_END = 0;
+    private static final int TAG_BYTE = 1;
+    private static final int TAG_BYTE_ARRAY = 7;
+    private static final int TAG_LIST = 9;
+    private static final int TAG_COMPOUND = 10;
+    private static final int TAG_INT_ARRAY = 11;
+    private static final int SECTIONS = 16;
+    private static final ThreadLocal<ChunkNbtReader> READERS = new ThreadLocal<ChunkNbtReader>() {
+        @Override
+        protected ChunkNbtReader initialValue() {
+            return new ChunkNbtReader();
+        }
+    };
+    // The chunk vanilla getChunk is building on this thread, see ChunkMixin.addBlockEntity
+    private static final ThreadLocal<ChunkNbtReader.Build> BUILDING = new ThreadLocal<ChunkNbtReader.Build>();
+    // The tags around Level and the tags of Level besides Sections, each framed as a nameless compound
+    private final ChunkNbtReader.Frame root = new ChunkNbtReader.Frame();
+    private final ChunkNbtReader.Frame level = new ChunkNbtReader.Frame();
+    // Section arrays that come before the section's Y, so there's no section to read them into yet
+    private final byte[] blocks = new byte[4096];
+    private final byte[] add = new byte[2048];
+    private final byte[] data = new byte[2048];
+    private final byte[] skyLight = new byte[2048];
+    private final byte[] blockLight = new byte[2048];
+    private final byte[] skip = new byte[4096];
+
+    public static ChunkNbtReader.ChunkData read(DataInput in) throws IOException {
+        if (!ENABLED) {
+            return new ChunkNbtReader.ChunkData(NbtIo.read(in), null);
+        }
+
+        return READERS.get().readChunk(in);
+    }
+
+    /**
+     * Makes the sections available to the chunk at the given position being built on this thread,
+     * until {@link #endBuild} is called with the returned build. Vanilla getChunk replaces the chunk's
+     * sections with the ones in the compound, none when they were streamed, before it adds the tile
+     * entities, and a tile entity on what looks like air is dropped. A build started while another
+     * is running hides it until it ends, so a nested load never sees the outer chunk's sections.
+     *
+     * @param sections The streamed sections, or null if they are still in the compound
+     */
+    public static ChunkNbtReader.Build beginBuild(World world, int chunkX, int chunkZ, ChunkSection[] sections) {
+        ChunkNbtReader.Build build = new ChunkNbtReader.Build(world, chunkX, chunkZ, sections, BUILDING.get());
+        BUILDING.set(build);
+        return build;
+    }
+
+    /**
+     * Ends the given build, making the one it hid current again.
+     */
+    public static void endBuild(ChunkNbtReader.Build build) {
+        if (build.previous != null) {
+            BUILDING.set(build.previous);
+        } else {
+            BUILDING.remove();
+        }
+    }
+
+    /**
+     * Returns the sections of the build running on this thread if it is for the given chunk, or null.
+     */
+    public static ChunkSection[] getBuildingSections(World world, int chunkX, int chunkZ) {
+        ChunkNbtReader.Build build = BUILDING.get();
+        return build != null && build.world == world && build.chunkX == chunkX && build.chunkZ == chunkZ ? build.sections : null;
+    }
+
+    private ChunkNbtReader.ChunkData readChunk(DataInput in) throws IOException {
+        if (in.readByte() != TAG_COMPOUND) {
+            throw new IOException("Root tag must be a named compound tag");
+        }
+        in.readUTF();
+
+        this.root.begin();
+        this.level.begin();
+        boolean hasLevel = false;
+        ChunkSection[] sections = null;
+        int type;
+        while ((type = in.readByte()) != TAG_END) {
+            String name = in.readUTF();
+            if (type != TAG_COMPOUND || !name.equals("Level") || hasLevel) {
+                this.root.copyTag(type, name, in);
+                continue;
+            }
+
+            hasLevel = true;
+            while ((type = in.readByte()) != TAG_END) {
+                name = in.readUTF();
+                if (type == TAG_LIST && name.equals("Sections") && sections == null) {
+                    sections = this.readSections(in);
+                } else {
+                    this.level.copyTag(type, name, in);
+                }
+            }
+        }
+
+        NbtCompound var5 = this.root.end();
+        if (hasLevel) {
+            var5.put("Level", this.level.end());
+        }
+
+        return new ChunkNbtReader.ChunkData(var5, sections);
+    }
+
+    private ChunkSection[] readSections(DataInput in) throws IOException {
+        ChunkSection[] sections = new ChunkSection[SECTIONS];
+        int type = in.readByte();
+        int count = in.readInt();
+        if (type != TAG_COMPOUND) {
+            // Only an empty list can have another element type
+            for (int i = 0; i < count; i++) {
+                skipPayload(type, in, this.skip);
+            }
+            return sections;
+        }
+
+        for (int i = 0; i < count; i++) {
+            this.readSection(in, sections);
+        }
+        return sections;
+    }
+
+    private void readSection(DataInput in, ChunkSection[] sections) throws IOException {
+        ChunkSection section = null;
+        int y = 0;
+        int read = 0;
+        int type;
+        while ((type = in.readByte()) != TAG_END) {
+            String name = in.readUTF();
+            int index = type == TAG_BYTE_ARRAY ? arrayIndex(name) : -1;
+            if (index >= 0) {
+                if (section != null) {
+                    readArray(in, target(section, index), this.skip);
+                } else {
+                    readArray(in, this.scratch(index), this.skip);
+                    read |= 1 << index;
+                }
+            } else if (type == TAG_BYTE && name.equals("Y") && section == null) {
+                y = in.readByte();
+                if (y < 0 || y >= SECTIONS) {
+                    throw new IOException("Section Y " + y + " out of range");
+                }
+
+                section = new ChunkSection(y << 4);
+                this.flush(section, read);
+            } else {
+                skipPayload(type, in, this.skip);
+            }
+        }
+
+        if (section == null) {
+            section = new ChunkSection(y << 4);
+            this.flush(section, read);
+        }
+
+        section.calculateCounts();
+        sections[y] = section;
+    }
+
+    private void flush(ChunkSection section, int read) {
+        for (int index = 0; index < 5; index++) {
+            if ((read & 1 << index) != 0) {
+                byte[] source = this.scratch(index);
+                System.arraycopy(source, 0, target(section, index), 0, source.length);
+            }
+        }
+    }
+
+    private byte[] scratch(int index) {
+        switch (index) {
+            case 0:
+                return this.blocks;
+            case 1:
+                return this.add;
+            case 2:
+                return this.data;
+            case 3:
+                return this.skyLight;
+            default:
+                return this.blockLight;
+        }
+    }
+
+    private static byte[] target(ChunkSection section, int index) {
+        switch (index) {
+            case 0:
+                return section.getBlocks();
+            case 1:
+                ChunkNibbleArray var2 = section.method_3944();
+                return (var2 != null ? var2 : section.method_3948()).bytes;
+            case 2:
+                return section.getBlockData().bytes;
+            case 3:
+                return section.getSkyLight().bytes;
+            default:
+                return section.getBlockLight().bytes;
+        }
+    }
+
+    private static int arrayIndex(String name) {
+        if (name.equals("Blocks")) {
+            return 0;
+        } else if (name.equals("Add")) {
+            return 1;
+        } else if (name.equals("Data")) {
+            return 2;
+        } else if (name.equals("SkyLight")) {
+            return 3;
+        } else if (name.equals("BlockLight")) {
+            return 4;
+        }
+        return -1;
+    }
+
+    // A wrongly sized array is cut or zero padded to fit instead of replacing the section's storage
+    private static void readArray(DataInput in, byte[] target, byte[] skip) throws IOException {
+        int length = in.readInt();
+        int fit = Math.min(Math.max(length, 0), target.length);
+        in.readFully(target, 0, fit);
+        for (int i = fit; i < target.length; i++) {
+            target[i] = 0;
+        }
+        skipBytes(in, length - fit, skip);
+    }
+
+    private static void skipPayload(int type, DataInput in, byte[] skip) throws IOException {
+        copyPayload(type, in, null, skip);
+    }
+
+    /**
+     * Copies one tag payload from in to out, or skips it when out is null.
+     */
+    private static void copyPayload(int type, DataInput in, DataOutputStream out, byte[] buffer) throws IOException {
+        switch (type) {
+            case 1:
+                copyBytes(in, out, 1, buffer);
+                break;
+            case 2:
+                copyBytes(in, out, 2, buffer);
+                break;
+            case 3:
+            case 5:
+                copyBytes(in, out, 4, buffer);
+                break;
+            case 4:
+            case 6:
+                copyBytes(in, out, 8, buffer);
+                break;
+            case TAG_BYTE_ARRAY:
+                copyBytes(in, out, copyInt(in, out), buffer);
+                break;
+            case 8:
+                copyBytes(in, out, copyShort(in, out), buffer);
+                break;
+            case TAG_LIST:
+                int elementType = in.readByte();
+                if (out != null) {
+                    out.writeByte(elementType);
+                }
+
+                int count = copyInt(in, out);
+                for (int i = 0; i < count; i++) {
+                    copyPayload(elementType, in, out, buffer);
+                }
+                break;
+            case TAG_COMPOUND:
+                int childType;
+                while ((childType = in.readByte()) != TAG_END) {
+                    if (out != null) {
+                        out.writeByte(childType);
+                    }
+                    copyBytes(in, out, copyShort(in, out), buffer);
+                    copyPayload(childType, in, out, buffer);
+                }
+
+                if (out != null) {
+                    out.writeByte(TAG_END);
+                }
+                break;
+            case TAG_INT_ARRAY:
+                copyBytes(in, out, copyInt(in, out) * 4, buffer);
+                break;
+            default:
+                throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+
+    private static int copyInt(DataInput in, DataOutputStream out) throws IOException {
+        int value = in.readInt();
+        if (value < 0) {
+            throw new IOException("Negative NBT length " + value);
+        }
+        if (out != null) {
+            out.writeInt(value);
+        }
+        return value;
+    }
+
+    private static int copyShort(DataInput in, DataOutputStream out) throws IOException {
+        int value = in.readUnsignedShort();
+        if (out != null) {
+            out.writeShort(value);
+        }
+        return value;
+    }
+
+    private static void copyBytes(DataInput in, DataOutputStream out, int length, byte[] buffer) throws IOException {
+        if (out == null) {
+            skipBytes(in, length, buffer);
+            return;
+        }
+
+        while (length > 0) {
+            int chunk = Math.min(length, buffer.length);
+            in.readFully(buffer, 0, chunk);
+            out.write(buffer, 0, chunk);
+            length -= chunk;
+        }
+    }
+
+    // DataInput.skipBytes may skip less than asked, so read through a buffer instead
+    private static void skipBytes(DataInput in, int length, byte[] buffer) throws IOException {
+        while (length > 0) {
+            int chunk = Math.min(length, buffer.length);
+            in.readFully(buffer, 0, chunk);
+            length -= chunk;
+        }
+    }
+
+    public static class Build {
+        private final World world;
+        private final int chunkX;
+        private final int chunkZ;
+        private final ChunkSection[] sections;
+        private final ChunkNbtReader.Build previous;
+
+        private Build(World world, int chunkX, int chunkZ, ChunkSection[] sections, ChunkNbtReader.Build previous) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.sections = sections;
+            this.previous = previous;
+        }
+    }
+
+    /**
+     * The chunk's NBT, with its sections already built when it was read as a stream. The
+     * compound only holds Level.Sections when it didn't come from {@link #read}, e.g. from a
+     * save that is still queued, or when streaming is disabled.
+     */
+    public static class ChunkData {
+        private final NbtCompound root;
+        private final ChunkSection[] sections;
+        private boolean materialized;
+
+        public ChunkData(NbtCompound root, ChunkSection[] sections) {
+            this.root = root;
+            this.sections = sections;
+        }
+
+        public NbtCompound getRoot() {
+            return this.root;
+        }
+
+        /**
+         * Returns the sections read from the stream, indexed by Y, or null if they are still in the compound.
+         */
+        public ChunkSection[] getSections() {
+            return this.sections;
+        }
+
+        public boolean hasSections() {
+            return this.sections != null || this.root.getCompound("Level").contains("Sections");
+        }
+
+        /**
+         * Returns the full compound, putting Level.Sections back in it from the sections' storage
+         * the first time. Only worth doing for someone who will look at the compound.
+         */
+        public NbtCompound materialize() {
+            if (this.sections != null && !this.materialized) {
+                this.materialized = true;
+                NbtList var1 = new NbtList();
+                for (int var2 = 0; var2 < this.sections.length; var2++) {
+                    ChunkSection var3 = this.sections[var2];
+                    if (var3 != null) {
+                        NbtCompound var4 = new NbtCompound();
+                        var4.putByte("Y", (byte)var2);
+                        var4.putByteArray("Blocks", var3.getBlocks());
+                        if (var3.method_3944() != null) {
+                            var4.putByteArray("Add", var3.method_3944().bytes);
+                        }
+
+                        var4.putByteArray("Data", var3.getBlockData().bytes);
+                        var4.putByteArray("SkyLight", var3.getSkyLight().bytes);
+                        var4.putByteArray("BlockLight", var3.getBlockLight().bytes);
+                        var1.method_1217(var4);
+                    }
+                }
+
+                this.root.getCompound("Level").put("Sections", var1);
+            }
+
+            return this.root;
+        }
+    }
+
+    // Tags copied as raw bytes into a buffer that NbtIo parses as one nameless compound
+    private static class Frame extends ByteArrayOutputStream {
+        private final DataOutputStream out = new DataOutputStream(this);
+        private final byte[] buffer = new byte[4096];
+
+        private Frame() {
+            super(8192);
+        }
+
+        private void begin() throws IOException {
+            this.reset();
+            this.out.writeByte(TAG_COMPOUND);
+            this.out.writeUTF("");
+        }
+
+        private void copyTag(int type, String name, DataInput in) throws IOException {
+            this.out.writeByte(type);
+            this.out.writeUTF(name);
+            copyPayload(type, in, this.out, this.buffer);
+        }
+
+        private NbtCompound end() throws IOException {
+            this.out.writeByte(TAG_END);
+            return NbtIo.read(new DataInputStream(new ByteArrayInputStream(this.buf, 0, this.count)));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package fr.catcore.fabricatedforge.util;
+
+import fr.catcore.fabricatedforge.mixininterface.IServerChunkProvider;
+import fr.catcore.fabricatedforge.mixininterface.IThreadedAnvilChunkStorage;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.chunk.ChunkStorage;
+import net.minecraftforge.common.DimensionManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chunk saves waiting for the file IO thread, in the order they were first queued. Saving a
+ * chunk again before it is written replaces its data in place, and chunks are handed out in
+ * batches from one region file. Not thread safe; the chunk storage guards it with its lock.
+ * Queue depth and write latency can be read with the op-only forgesaves command.
+ */
+public class ChunkSaveQueue {
+    public static final String COMMAND_NAME = "forgesaves";
+    private final Map<Long, ChunkSaveQueue.Entry> queued = new LinkedHashMap<Long, ChunkSaveQueue.Entry>();
+    private final Map<Long, Map<Long, ChunkSaveQueue.Entry>> byRegion = new HashMap<Long, Map<Long, ChunkSaveQueue.Entry>>();
+    // Taken off the queue but not yet written; still what a load has to see
+    private final Map<Long, ChunkSaveQueue.Entry> writing = new HashMap<Long, ChunkSaveQueue.Entry>();
+    private int peakSize;
+    private long written;
+    private long coalesced;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    public int size() {
+        return this.queued.size();
+    }
+
+    public boolean isEmpty() {
+        return this.queued.isEmpty();
+    }
+
+    public void put(int chunkX, int chunkZ, NbtCompound data) {
+        Long key = key(chunkX, chunkZ);
+        ChunkSaveQueue.Entry entry = this.queued.get(key);
+        if (entry != null) {
+            entry.data = data;
+            ++this.coalesced;
+            return;
+        }
+
+        entry = new ChunkSaveQueue.Entry(chunkX, chunkZ, data, System.nanoTime());
+        this.queued.put(key, entry);
+        Long region = key(chunkX >> 5, chunkZ >> 5);
+        Map<Long, ChunkSaveQueue.Entry> regionEntries = this.byRegion.get(region);
+        if (regionEntries == null) {
+            regionEntries = new LinkedHashMap<Long, ChunkSaveQueue.Entry>();
+            this.byRegion.put(region, regionEntries);
+        }
+        regionEntries.put(key, entry);
+        if (this.queued.size() > this.peakSize) {
+            this.peakSize = this.queued.size();
+        }
+    }
+
+    /**
+     * Returns the newest data saved for the chunk that has not been written yet, or null if there is none.
+     */
+    public NbtCompound get(int chunkX, int chunkZ) {
+        Long key = key(chunkX, chunkZ);
+        ChunkSaveQueue.Entry entry = this.queued.get(key);
+        if (entry == null) {
+            entry = this.writing.get(key);
+        }
+        return entry == null ? null : entry.data;
+    }
+
+    /**
+     * Takes the oldest queued chunk and up to max - 1 more from the same region file off the queue.
+     * They stay visible to {@link #get} until passed to {@link #written}.
+     */
+    public List<ChunkSaveQueue.Entry> pollBatch(int max) {
+        List<ChunkSaveQueue.Entry> batch = new ArrayList<ChunkSaveQueue.Entry>();
+        if (this.queued.isEmpty()) {
+            return batch;
+        }
+
+        ChunkSaveQueue.Entry head = this.queued.values().iterator().next();
+        Long region = key(head.chunkX >> 5, head.chunkZ >> 5);
+        Map<Long, ChunkSaveQueue.Entry> regionEntries = this.byRegion.get(region);
+        Iterator<Map.Entry<Long, ChunkSaveQueue.Entry>> it = regionEntries.entrySet().iterator();
+        while (it.hasNext() && batch.size() < max) {
+            Map.Entry<Long, ChunkSaveQueue.Entry> next = it.next();
+            it.remove();
+            this.queued.remove(next.getKey());
+            this.writing.put(next.getKey(), next.getValue());
+            batch.add(next.getValue());
+        }
+
+        if (regionEntries.isEmpty()) {
+            this.byRegion.remove(region);
+        }
+        return batch;
+    }
+
+    public void written(List<ChunkSaveQueue.Entry> batch) {
+        long now = System.nanoTime();
+        for (ChunkSaveQueue.Entry entry : batch) {
+            Long key = key(entry.chunkX, entry.chunkZ);
+            if (this.writing.get(key) == entry) {
+                this.writing.remove(key);
+            }
+
+            long latency = now - entry.queuedAt;
+            this.totalLatencyNanos += latency;
+            if (latency > this.maxLatencyNanos) {
+                this.maxLatencyNanos = latency;
+            }
+        }
+        this.written += batch.size();
+    }
+
+    public String getStats() {
+        return String.format("%d queued (peak %d), %d written, %d coalesced, latency %.1f ms avg, %.1f ms max",
+                this.queued.size(), this.peakSize, this.written, this.coalesced,
+                this.written == 0 ? 0.0D : this.totalLatencyNanos / 1000000.0D / this.written, this.maxLatencyNanos / 1000000.0D);
+    }
+
+    public void resetStats() {
+        this.peakSize = this.queued.size();
+        this.written = 0;
+        this.coalesced = 0;
+        this.totalLatencyNanos = 0;
+        this.maxLatencyNanos = 0;
+    }
+
+    /**
+     * Formats the save queue stats of every loaded server world.
+     */
+    public static List<String> dump(boolean reset) {
+        List<String> lines = new ArrayList<String>();
+        for (ServerWorld world : DimensionManager.getWorlds()) {
+            ChunkStorage storage = ((IServerChunkProvider)world.chunkCache).getChunkWriter();
+            if (storage instanceof IThreadedAnvilChunkStorage) {
+                IThreadedAnvilChunkStorage anvil = (IThreadedAnvilChunkStorage)storage;
+                lines.add("dim " + world.dimension.dimensionType + ": " + anvil.getSaveQueueStats(reset));
+            }
+        }
+        return lines;
+    }
+
+    private static Long key(int x, int z) {
+        return (long)x << 32 | z & 0xFFFFFFFFL;
+    }
+
+    public static class Entry {
+        public final int chunkX;
+        public final int chunkZ;
+        private NbtCompound data;
+        private final long queuedAt;
+
+        private Entry(int chunkX, int chunkZ, NbtCompound data, long queuedAt) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.data = data;
+            this.queuedAt = queuedAt;
+        }
+
+        public NbtCompound getData() {
+            return this.data;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package fr.catcore.fabricatedforge.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running counts of a world's loaded entities per queried class. A class is counted
+ * with one scan the first time it is asked for and kept up to date by {@link #add} and
+ * {@link #remove} after that, so spawn cap checks no longer walk every loaded entity.
+ */
+public class EntityClassCounter {
+    private final Map<Class<?>, int[]> counts = new HashMap<Class<?>, int[]>();
+    private int size;
+
+    public void add(Object entity) {
+        ++this.size;
+        for (Map.Entry<Class<?>, int[]> count : this.counts.entrySet()) {
+            if (count.getKey().isInstance(entity)) {
+                ++count.getValue()[0];
+            }
+        }
+    }
+
+    public void remove(Object entity) {
+        --this.size;
+        for (Map.Entry<Class<?>, int[]> count : this.counts.entrySet()) {
+            if (count.getKey().isInstance(entity)) {
+                --count.getValue()[0];
+            }
+        }
+    }
+
+    /**
+     * Returns how many entities of the list are assignable to the given class.
+     *
+     * @param loaded The world's loaded entity list, recounted if it was changed behind the counter's back
+     */
+    public int get(Class<?> type, List<?> loaded) {
+        if (this.size != loaded.size()) {
+            this.counts.clear();
+            this.size = loaded.size();
+        }
+
+        int[] count = this.counts.get(type);
+        if (count == null) {
+            count = new int[1];
+            for (Object o : loaded) {
+                if (type.isInstance(o)) {
+                    ++count[0];
+                }
+            }
+            this.counts.put(type, count);
+        }
+
+        return count[0];
+    }
+}
@@ -0,0 +1,114 @@
+package fr.catcore.fabricatedforge.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class-bucketed view of one chunk section's entity list. A bucket holds every entity
+ * assignable to its query class in list order; it is built by one scan the first time
+ * that class is queried and kept up to date by {@link #add} and {@link #remove} after
+ * that, so a filtered query only walks the entities it can return. Only the most recently
+ * queried classes keep a bucket, and a change made to the list behind the index's back,
+ * seen through the list's modification count, drops them all.
+ */
+public class EntityClassIndex<E> {
+    private static final int MAX_BUCKETS = 8;
+    private final Map<Class<?>, Set<E>> buckets = new LinkedHashMap<Class<?>, Set<E>>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Class<?>, Set<E>> eldest) {
+            return this.size() > MAX_BUCKETS;
+        }
+    };
+    private int modCount = -1;
+
+    /**
+     * Updates the buckets for an entity just added to the section's list.
+     */
+    public void add(E entity, List<?> section) {
+        if (this.isCurrent(section, 1)) {
+            for (Map.Entry<Class<?>, Set<E>> bucket : this.buckets.entrySet()) {
+                if (bucket.getKey().isInstance(entity)) {
+                    bucket.getValue().add(entity);
+                }
+            }
+        } else {
+            this.buckets.clear();
+        }
+        this.modCount = modCount(section);
+    }
+
+    /**
+     * Updates the buckets for an entity just removed from the section's list.
+     */
+    public void remove(E entity, List<?> section) {
+        if (this.isCurrent(section, 1)) {
+            for (Map.Entry<Class<?>, Set<E>> bucket : this.buckets.entrySet()) {
+                if (bucket.getKey().isInstance(entity)) {
+                    bucket.getValue().remove(entity);
+                }
+            }
+        } else {
+            this.buckets.clear();
+        }
+        this.modCount = modCount(section);
+    }
+
+    /**
+     * Returns the entities of the section assignable to the given class.
+     *
+     * @param section The section's entity list, rescanned if it was changed behind the index's back
+     */
+    public Collection<E> get(Class<?> type, List<?> section) {
+        if (!(section instanceof EntityClassIndex.Section)) {
+            // Replaced by something that doesn't count its changes, so nothing can be kept
+            return this.scan(type, section);
+        }
+
+        if (!this.isCurrent(section, 0)) {
+            this.buckets.clear();
+            this.modCount = modCount(section);
+        }
+
+        Set<E> bucket = this.buckets.get(type);
+        if (bucket == null) {
+            bucket = new LinkedHashSet<E>(this.scan(type, section));
+            this.buckets.put(type, bucket);
+        }
+
+        return bucket;
+    }
+
+    // Whether the buckets match the list, give or take the given number of changes made through the index
+    private boolean isCurrent(List<?> section, int pending) {
+        return section instanceof EntityClassIndex.Section && modCount(section) - pending == this.modCount;
+    }
+
+    private static int modCount(List<?> section) {
+        return section instanceof EntityClassIndex.Section ? ((EntityClassIndex.Section)section).getModCount() : -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<E> scan(Class<?> type, List<?> section) {
+        List<E> found = new ArrayList<E>();
+        for (Object o : section) {
+            if (type.isInstance(o)) {
+                found.add((E)o);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * The entity list of a chunk section, which tells the index how often it was changed.
+     */
+    public static class Section extends ArrayList<Object> {
+        public int getModCount() {
+            return this.modCount;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package fr.catcore.fabricatedforge.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A small LZ77 codec in the style of the LZ4 block format: greedy matches of at least 4 bytes
+ * within 64 KiB, found through a single hash table, with no entropy coding. Several times faster
+ * than deflate at a worse ratio, which suits chunk saves on servers bound by CPU rather than disk.
+ * <p>
+ * A block is the uncompressed length as a big-endian int, followed by sequences of a token
+ * (literal count in the high nibble, match length - 4 in the low one, 15 meaning more length
+ * bytes follow, LZ4-style), the literals, a little-endian 16-bit match offset and the extra
+ * match length bytes. The last sequence has only literals.
+ */
+public class FastLz {
+    private static final int MIN_MATCH = 4;
+    private static final int MAX_OFFSET = 65535;
+    private static final int HASH_BITS = 14;
+
+    public static byte[] compress(byte[] src, int length) {
+        byte[] dst = new byte[maxCompressedLength(length)];
+        int[] table = new int[1 << HASH_BITS];
+        Arrays.fill(table, -1);
+        int out = 4;
+        dst[0] = (byte)(length >>> 24);
+        dst[1] = (byte)(length >>> 16);
+        dst[2] = (byte)(length >>> 8);
+        dst[3] = (byte)length;
+
+        int anchor = 0;
+        int pos = 0;
+        int matchLimit = length - MIN_MATCH;
+        while (pos <= matchLimit) {
+            int value = readInt(src, pos);
+            int hash = value * -1640531535 >>> 32 - HASH_BITS;
+            int ref = table[hash];
+            table[hash] = pos;
+            if (ref < 0 || pos - ref > MAX_OFFSET || readInt(src, ref) != value) {
+                ++pos;
+                continue;
+            }
+
+            int matchLength = MIN_MATCH;
+            while (pos + matchLength < length && src[ref + matchLength] == src[pos + matchLength]) {
+                ++matchLength;
+            }
+
+            out = writeSequence(src, anchor, pos - anchor, dst, out, pos - ref, matchLength);
+            pos += matchLength;
+            anchor = pos;
+        }
+
+        out = writeSequence(src, anchor, length - anchor, dst, out, 0, 0);
+        return Arrays.copyOf(dst, out);
+    }
+
+    public static byte[] decompress(byte[] src, int length) throws IOException {
+        if (length < 4) {
+            throw new IOException("Truncated block");
+        }
+
+        int total = (src[0] & 0xFF) << 24 | (src[1] & 0xFF) << 16 | (src[2] & 0xFF) << 8 | src[3] & 0xFF;
+        byte[] dst = new byte[total];
+        int in = 4;
+        int out = 0;
+        try {
+            while (true) {
+                int token = src[in++] & 0xFF;
+                int literals = token >>> 4;
+                if (literals == 15) {
+                    int extra;
+                    do {
+                        extra = src[in++] & 0xFF;
+                        literals += extra;
+                    } while (extra == 255);
+                }
+
+                System.arraycopy(src, in, dst, out, literals);
+                in += literals;
+                out += literals;
+                if (out == total) {
+                    return dst;
+                }
+
+                int offset = src[in++] & 0xFF | (src[in++] & 0xFF) << 8;
+                int matchLength = token & 15;
+                if (matchLength == 15) {
+                    int extra;
+                    do {
+                        extra = src[in++] & 0xFF;
+                        matchLength += extra;
+                    } while (extra == 255);
+                }
+                matchLength += MIN_MATCH;
+
+                int from = out - offset;
+                if (offset == 0 || from < 0) {
+                    throw new IOException("Corrupt block: bad match offset");
+                }
+
+                // Byte by byte, since a match may overlap what it is producing
+                for (int i = 0; i < matchLength; i++) {
+                    dst[out++] = dst[from + i];
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt block", e);
+        }
+    }
+
+    private static int writeSequence(byte[] src, int literalStart, int literals, byte[] dst, int out, int offset, int matchLength) {
+        int tokenPos = out++;
+        int token = Math.min(literals, 15) << 4;
+        if (literals >= 15) {
+            out = writeLength(dst, out, literals - 15);
+        }
+
+        System.arraycopy(src, literalStart, dst, out, literals);
+        out += literals;
+        if (matchLength > 0) {
+            dst[out++] = (byte)offset;
+            dst[out++] = (byte)(offset >>> 8);
+            int extra = matchLength - MIN_MATCH;
+            token |= Math.min(extra, 15);
+            if (extra >= 15) {
+                out = writeLength(dst, out, extra - 15);
+            }
+        }
+
+        dst[tokenPos] = (byte)token;
+        return out;
+    }
+
+    private static int writeLength(byte[] dst, int out, int length) {
+        while (length >= 255) {
+            dst[out++] = (byte)255;
+            length -= 255;
+        }
+        dst[out++] = (byte)length;
+        return out;
+    }
+
+    private static int maxCompressedLength(int length) {
+        return 4 + length + length / 255 + 16;
+    }
+
+    private static int readInt(byte[] src, int pos) {
+        return src[pos] & 0xFF | (src[pos + 1] & 0xFF) << 8 | (src[pos + 2] & 0xFF) << 16 | (src[pos + 3] & 0xFF) << 24;
+    }
+}
@@ -0,0 +1,162 @@
+package fr.catcore.fabricatedforge.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from primitive long keys to non-null values, for lookups on
+ * packed coordinates that would otherwise box a Long per call.
+ */
+public class LongObjectMap<V> {
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    public LongObjectMap() {
+        this(16);
+    }
+
+    public LongObjectMap(int expected) {
+        int capacity = 16;
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int mask = this.keys.length - 1;
+        for (int slot = hash(key) & mask; this.values[slot] != null; slot = slot + 1 & mask) {
+            if (this.keys[slot] == key) {
+                return (V)this.values[slot];
+            }
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return this.get(key) != null;
+    }
+
+    /**
+     * Maps the key to the value and returns the previous value, or null if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+
+        int mask = this.keys.length - 1;
+        int slot = hash(key) & mask;
+        for (; this.values[slot] != null; slot = slot + 1 & mask) {
+            if (this.keys[slot] == key) {
+                V old = (V)this.values[slot];
+                this.values[slot] = value;
+                return old;
+            }
+        }
+
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        if (++this.size * 2 > this.keys.length) {
+            this.rehash(this.keys.length * 2);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int mask = this.keys.length - 1;
+        for (int slot = hash(key) & mask; this.values[slot] != null; slot = slot + 1 & mask) {
+            if (this.keys[slot] == key) {
+                V old = (V)this.values[slot];
+                this.values[slot] = null;
+                --this.size;
+                this.shiftBack(slot);
+                return old;
+            }
+        }
+        return null;
+    }
+
+    public void clear() {
+        Arrays.fill(this.values, null);
+        this.size = 0;
+    }
+
+    /**
+     * Copies the values into the given array, which must hold at least {@link #size()} elements.
+     */
+    @SuppressWarnings("unchecked")
+    public V[] values(V[] out) {
+        int i = 0;
+        for (Object value : this.values) {
+            if (value != null) {
+                out[i++] = (V)value;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Copies the keys into the given array, which must hold at least {@link #size()} elements.
+     */
+    public long[] keys(long[] out) {
+        int i = 0;
+        for (int slot = 0; slot < this.values.length; slot++) {
+            if (this.values[slot] != null) {
+                out[i++] = this.keys[slot];
+            }
+        }
+        return out;
+    }
+
+    // Closes the gap left by a removal so probe sequences stay unbroken
+    private void shiftBack(int gap) {
+        int mask = this.keys.length - 1;
+        for (int slot = gap + 1 & mask; this.values[slot] != null; slot = slot + 1 & mask) {
+            int home = hash(this.keys[slot]) & mask;
+            if ((slot - home & mask) >= (slot - gap & mask)) {
+                this.keys[gap] = this.keys[slot];
+                this.values[gap] = this.values[slot];
+                this.values[slot] = null;
+                gap = slot;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (this.values[slot] != null) {
+                    slot = slot + 1 & mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        return (int)key;
+    }
+}
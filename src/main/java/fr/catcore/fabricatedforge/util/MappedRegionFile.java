@@ -0,0 +1,229 @@
+package fr.catcore.fabricatedforge.util;
+
+import cpw.mods.fml.common.FMLLog;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * One anvil region file, in the same format as vanilla RegionFile. The 8 KiB location and
+ * timestamp header is memory mapped, the free sectors are kept in a bitset, and chunk payloads
+ * are read and written with positional channel I/O, so readers never share a file pointer.
+ */
+public class MappedRegionFile {
+    private static final int SECTOR_SIZE = 4096;
+    private static final int HEADER_SIZE = SECTOR_SIZE * 2;
+    private static final int MAX_SECTORS_PER_CHUNK = 255;
+    private final File file;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final BitSet usedSectors = new BitSet();
+    private int sectorCount;
+    private boolean closed;
+
+    public MappedRegionFile(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            long size = this.channel.size();
+            long padded = Math.max(HEADER_SIZE, (size + SECTOR_SIZE - 1) / SECTOR_SIZE * SECTOR_SIZE);
+            if (padded > size) {
+                writeFully(this.channel, ByteBuffer.allocate((int)(padded - size)), size);
+            }
+
+            this.header = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            this.sectorCount = (int)(padded / SECTOR_SIZE);
+            this.usedSectors.set(0, 2);
+            for (int i = 0; i < 1024; i++) {
+                int location = this.header.getInt(i * 4);
+                int start = location >>> 8;
+                int count = location & 0xFF;
+                if (location != 0 && start >= 2 && start + count <= this.sectorCount) {
+                    this.usedSectors.set(start, start + count);
+                }
+            }
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Reads a chunk's compressed payload, or returns null if the file doesn't hold the chunk.
+     *
+     * @throws ClosedChannelException if the file was closed, so the caller should reopen it
+     */
+    public synchronized MappedRegionFile.Payload read(int chunkX, int chunkZ) throws IOException {
+        if (this.closed) {
+            throw new ClosedChannelException();
+        }
+
+        int location = this.header.getInt(index(chunkX, chunkZ) * 4);
+        int start = location >>> 8;
+        int count = location & 0xFF;
+        if (location == 0 || start < 2 || start + count > this.sectorCount) {
+            return null;
+        }
+
+        ByteBuffer prefix = ByteBuffer.allocate(5);
+        readFully(this.channel, prefix, (long)start * SECTOR_SIZE);
+        int length = prefix.getInt(0);
+        if (length < 1 || length > count * SECTOR_SIZE - 4) {
+            return null;
+        }
+
+        byte[] data = new byte[length - 1];
+        readFully(this.channel, ByteBuffer.wrap(data), (long)start * SECTOR_SIZE + 5);
+        return new MappedRegionFile.Payload(prefix.get(4), data);
+    }
+
+    /**
+     * Writes the given chunks. The header only points at a chunk's new sectors once its payload is
+     * written, and the sectors it no longer fits in are only freed after that, so no other chunk of
+     * the batch can be written over them while the header still points there. A chunk that still
+     * fits its sectors is rewritten in place, as vanilla does.
+     *
+     * @throws ClosedChannelException if the file was closed, so the caller should reopen it
+     */
+    public synchronized void write(List<MappedRegionFile.Write> writes) throws IOException {
+        if (this.closed) {
+            throw new ClosedChannelException();
+        }
+
+        for (MappedRegionFile.Write write : writes) {
+            int location = this.header.getInt(index(write.chunkX, write.chunkZ) * 4);
+            int start = location >>> 8;
+            int count = location & 0xFF;
+            write.sectors = (write.length + 5 + SECTOR_SIZE - 1) / SECTOR_SIZE;
+            write.start = -1;
+            write.oldCount = 0;
+            if (write.sectors > MAX_SECTORS_PER_CHUNK) {
+                // Vanilla can't store it either; leave whatever was there before
+                FMLLog.warning("Chunk %d,%d is too large to save in %s", write.chunkX, write.chunkZ, this.file);
+            } else if (location != 0 && start >= 2 && start + count <= this.sectorCount) {
+                if (count == write.sectors) {
+                    write.start = start;
+                } else {
+                    // Still used until the header stops pointing at them
+                    write.oldStart = start;
+                    write.oldCount = count;
+                }
+            }
+        }
+
+        for (MappedRegionFile.Write write : writes) {
+            if (write.sectors > MAX_SECTORS_PER_CHUNK) {
+                continue;
+            }
+
+            if (write.start < 0) {
+                write.start = this.allocate(write.sectors);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(write.sectors * SECTOR_SIZE);
+            buffer.putInt(write.length + 1);
+            buffer.put(write.version);
+            buffer.put(write.data, 0, write.length);
+            buffer.clear();
+            writeFully(this.channel, buffer, (long)write.start * SECTOR_SIZE);
+        }
+
+        int now = (int)(System.currentTimeMillis() / 1000L);
+        for (MappedRegionFile.Write write : writes) {
+            if (write.start >= 0) {
+                int index = index(write.chunkX, write.chunkZ);
+                this.header.putInt(index * 4, write.start << 8 | write.sectors);
+                this.header.putInt(SECTOR_SIZE + index * 4, now);
+                if (write.oldCount > 0) {
+                    this.usedSectors.clear(write.oldStart, write.oldStart + write.oldCount);
+                }
+            }
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        if (!this.closed) {
+            this.closed = true;
+            this.header.force();
+            this.channel.close();
+        }
+    }
+
+    // First fit among the free sectors, growing the file when no free run is long enough
+    private int allocate(int sectors) {
+        int start = this.usedSectors.nextClearBit(2);
+        while (start < this.sectorCount) {
+            int end = this.usedSectors.nextSetBit(start);
+            if (end < 0 || end >= this.sectorCount || end - start >= sectors) {
+                break;
+            }
+            start = this.usedSectors.nextClearBit(end);
+        }
+
+        this.usedSectors.set(start, start + sectors);
+        this.sectorCount = Math.max(this.sectorCount, start + sectors);
+        return start;
+    }
+
+    private static int index(int chunkX, int chunkZ) {
+        return (chunkX & 31) + (chunkZ & 31) * 32;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    public static class Payload {
+        public final byte version;
+        public final byte[] data;
+
+        private Payload(byte version, byte[] data) {
+            this.version = version;
+            this.data = data;
+        }
+    }
+
+    public static class Write {
+        public final int chunkX;
+        public final int chunkZ;
+        private final byte version;
+        private final byte[] data;
+        private final int length;
+        private int start;
+        private int sectors;
+        private int oldStart;
+        private int oldCount;
+
+        public Write(int chunkX, int chunkZ, byte version, byte[] data, int length) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.version = version;
+            this.data = data;
+            this.length = length;
+        }
+    }
+}
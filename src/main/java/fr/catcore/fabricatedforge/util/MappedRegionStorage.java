@@ -0,0 +1,142 @@
+package fr.catcore.fabricatedforge.util;
+
+import net.minecraft.nbt.NbtIo;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Region storage over {@link MappedRegionFile}s. Open files are kept in an LRU cache of at most
+ * -Dforge.regionFileCache files (256 by default), so a big world can't run out of descriptors.
+ * Payloads are compressed with the world's {@link ChunkCodec} and decompressed outside the
+ * file's lock.
+ */
+public class MappedRegionStorage implements RegionStorage {
+    public static final MappedRegionStorage INSTANCE = new MappedRegionStorage();
+    private static final int MAX_OPEN_FILES = Math.max(1, Integer.getInteger("forge.regionFileCache", 256));
+    private final Map<File, MappedRegionFile> openFiles = new LinkedHashMap<File, MappedRegionFile>(16, 0.75F, true);
+
+    public DataInputStream read(File dir, int chunkX, int chunkZ) throws IOException {
+        MappedRegionFile.Payload payload;
+        while (true) {
+            MappedRegionFile region = this.getRegionFile(dir, chunkX, chunkZ, false);
+            if (region == null) {
+                return null;
+            }
+
+            try {
+                payload = region.read(chunkX, chunkZ);
+                break;
+            } catch (ClosedChannelException e) {
+                // Evicted between the lookup and the read
+            }
+        }
+
+        if (payload == null) {
+            return null;
+        }
+
+        ChunkCodec codec = ChunkCodec.forVersion(payload.version);
+        if (codec == null) {
+            // Returning nothing would have the chunk generated again over the saved one
+            throw new ChunkCodec.UnknownVersionException("Chunk " + chunkX + "," + chunkZ + " in " + dir + " has unknown compression " + payload.version);
+        }
+        return new DataInputStream(new BufferedInputStream(codec.decompress(payload.data)));
+    }
+
+    public void write(File dir, List<ChunkSaveQueue.Entry> batch, ChunkCodec codec) {
+        List<MappedRegionFile.Write> writes = new ArrayList<MappedRegionFile.Write>(batch.size());
+        NbtBytes bytes = new NbtBytes();
+        for (ChunkSaveQueue.Entry entry : batch) {
+            try {
+                bytes.reset();
+                NbtIo.method_1345(entry.getData(), new DataOutputStream(bytes));
+                byte[] data = codec.compress(bytes.getBuffer(), bytes.size());
+                writes.add(new MappedRegionFile.Write(entry.chunkX, entry.chunkZ, codec.getVersion(), data, data.length));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        if (writes.isEmpty()) {
+            return;
+        }
+
+        // A batch comes from a single region file
+        MappedRegionFile.Write first = writes.get(0);
+        while (true) {
+            try {
+                this.getRegionFile(dir, first.chunkX, first.chunkZ, true).write(writes);
+                return;
+            } catch (ClosedChannelException e) {
+                // Evicted between the lookup and the write
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+    }
+
+    public void close() {
+        synchronized (this.openFiles) {
+            for (MappedRegionFile region : this.openFiles.values()) {
+                closeQuietly(region);
+            }
+            this.openFiles.clear();
+        }
+    }
+
+    private MappedRegionFile getRegionFile(File dir, int chunkX, int chunkZ, boolean create) throws IOException {
+        File file = new File(new File(dir, "region"), "r." + (chunkX >> 5) + "." + (chunkZ >> 5) + ".mca");
+        synchronized (this.openFiles) {
+            MappedRegionFile region = this.openFiles.get(file);
+            if (region != null) {
+                return region;
+            }
+
+            if (!create && !file.exists()) {
+                return null;
+            }
+
+            file.getParentFile().mkdirs();
+            if (this.openFiles.size() >= MAX_OPEN_FILES) {
+                Iterator<MappedRegionFile> eldest = this.openFiles.values().iterator();
+                closeQuietly(eldest.next());
+                eldest.remove();
+            }
+
+            region = new MappedRegionFile(file);
+            this.openFiles.put(file, region);
+            return region;
+        }
+    }
+
+    // Hands the codec the buffer itself instead of a copy
+    private static class NbtBytes extends ByteArrayOutputStream {
+        private NbtBytes() {
+            super(65536);
+        }
+
+        private byte[] getBuffer() {
+            return this.buf;
+        }
+    }
+
+    private static void closeQuietly(MappedRegionFile region) {
+        try {
+            region.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
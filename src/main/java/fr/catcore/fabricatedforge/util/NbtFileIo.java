@@ -0,0 +1,144 @@
+package fr.catcore.fabricatedforge.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Buffered channel streams for uncompressed NBT files. Writes go to a temporary file that
+ * replaces the target with an atomic rename, so a crash mid-save leaves the old file intact.
+ * Set -Dforge.nbtFsync=true to also force the data to disk before the rename, and
+ * -Dforge.nbtWholeReadThreshold to the size in bytes from which a file is read into memory
+ * in one go. Reads aren't memory mapped: a mapping outlives the stream until it is garbage
+ * collected, and on Windows it keeps the file from being replaced by the next save.
+ */
+public class NbtFileIo {
+    private static final int BUFFER_SIZE = 65536;
+    private static final boolean FSYNC = Boolean.parseBoolean(System.getProperty("forge.nbtFsync", "false"));
+    private static final long WHOLE_READ_THRESHOLD = Long.getLong("forge.nbtWholeReadThreshold", 1048576L);
+
+    public static DataInputStream openInput(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        long size = channel.size();
+        if (size >= WHOLE_READ_THRESHOLD && size <= Integer.MAX_VALUE) {
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate((int)size);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        break;
+                    }
+                }
+                buffer.flip();
+                return new DataInputStream(new NbtFileIo.ByteBufferInputStream(buffer));
+            } finally {
+                channel.close();
+            }
+        }
+
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+    }
+
+    public static NbtFileIo.AtomicOutput openAtomicOutput(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new NbtFileIo.AtomicOutput(file, temp, channel);
+    }
+
+    /**
+     * A stream to the temporary file of an atomic write. {@link #commit} puts it in place of the
+     * target; closing it without committing throws the written data away.
+     */
+    public static class AtomicOutput extends DataOutputStream {
+        private final File target;
+        private final File temp;
+        private final FileChannel channel;
+        private boolean closed;
+
+        private AtomicOutput(File target, File temp, FileChannel channel) {
+            super(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            this.target = target;
+            this.temp = temp;
+            this.channel = channel;
+        }
+
+        public void commit() throws IOException {
+            this.flush();
+            if (FSYNC) {
+                this.channel.force(true);
+            }
+            this.close();
+
+            try {
+                Files.move(this.temp.toPath(), this.target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(this.temp.toPath(), this.target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!this.closed) {
+                this.closed = true;
+                super.close();
+            }
+        }
+
+        public void abort() {
+            try {
+                this.close();
+            } catch (IOException ignored) {
+            }
+            this.temp.delete();
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+
+            length = Math.min(length, this.buffer.remaining());
+            this.buffer.get(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public long skip(long count) {
+            int skipped = (int)Math.max(0L, Math.min(count, this.buffer.remaining()));
+            this.buffer.position(this.buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+}
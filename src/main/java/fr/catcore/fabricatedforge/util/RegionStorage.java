@@ -0,0 +1,37 @@
+package fr.catcore.fabricatedforge.util;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * An alternative to RegionIo for reading and writing the chunks in region files. Picked for
+ * every world by AnvilWorldSaveHandler.getChunkWriter from -Dforge.regionStorage: "vanilla",
+ * the default, keeps RegionIo and "mapped" uses {@link MappedRegionStorage}.
+ */
+public interface RegionStorage {
+    /**
+     * Returns a stream over the chunk's uncompressed NBT, or null if the region file doesn't hold the chunk.
+     */
+    DataInputStream read(File dir, int chunkX, int chunkZ) throws IOException;
+
+    /**
+     * Writes a batch of chunks from one region file, compressed with the given codec. A chunk that
+     * fails to write is logged and skipped.
+     */
+    void write(File dir, List<ChunkSaveQueue.Entry> batch, ChunkCodec codec);
+
+    /**
+     * Closes the open region files once all pending writes are done.
+     */
+    void close();
+
+    /**
+     * Returns the configured region storage, or null to use RegionIo.
+     */
+    static RegionStorage fromConfig() {
+        String name = System.getProperty("forge.regionStorage", "vanilla");
+        return "mapped".equals(name) ? MappedRegionStorage.INSTANCE : null;
+    }
+}
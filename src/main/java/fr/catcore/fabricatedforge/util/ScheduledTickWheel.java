@@ -0,0 +1,369 @@
+package fr.catcore.fabricatedforge.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Pending scheduled block ticks of a world, kept in a two-level timing wheel keyed by
+ * absolute world time. The near level has a slot per tick of the current 256-tick
+ * epoch, the far level a slot per epoch for the next 255 epochs, and anything later
+ * waits in an overflow list. Ticks are also indexed by packed position for
+ * de-duplication and chained per chunk, so saving or unloading a chunk only touches
+ * its own ticks.
+ *
+ * Ticks come out in (time, scheduling order), like the TreeSet this replaces.
+ */
+public class ScheduledTickWheel {
+    private static final Comparator<ScheduledTickWheel.Tick> ORDER = new Comparator<ScheduledTickWheel.Tick>() {
+        public int compare(ScheduledTickWheel.Tick a, ScheduledTickWheel.Tick b) {
+            if (a.time != b.time) {
+                return a.time < b.time ? -1 : 1;
+            }
+            return a.seq < b.seq ? -1 : a.seq > b.seq ? 1 : 0;
+        }
+    };
+    private static final int NEAR = 0;
+    private static final int FAR = 1;
+    private static final int OVERFLOW = 2;
+    private static final int OVERDUE = 3;
+
+    private final ScheduledTickWheel.Slot[] near = new ScheduledTickWheel.Slot[256];
+    private final ScheduledTickWheel.Slot[] far = new ScheduledTickWheel.Slot[256];
+    private final ScheduledTickWheel.Slot overflow = new ScheduledTickWheel.Slot(OVERFLOW);
+    private final ScheduledTickWheel.Slot overdue = new ScheduledTickWheel.Slot(OVERDUE);
+    private final int[] counts = new int[4];
+    private final LongObjectMap<ScheduledTickWheel.Tick> byPos = new LongObjectMap<ScheduledTickWheel.Tick>(1024);
+    private final LongObjectMap<ScheduledTickWheel.Tick> byChunk = new LongObjectMap<ScheduledTickWheel.Tick>(256);
+    private long cursor;
+    private long nextSeq;
+    private int size;
+
+    public ScheduledTickWheel() {
+        for (int i = 0; i < 256; i++) {
+            this.near[i] = new ScheduledTickWheel.Slot(NEAR);
+            this.far[i] = new ScheduledTickWheel.Slot(FAR);
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Schedules a tick unless one for the same block at the same position is already pending.
+     *
+     * @return Whether the tick was added
+     */
+    public boolean schedule(int x, int y, int z, int blockId, long time) {
+        long pos = packPos(x, y, z);
+        ScheduledTickWheel.Tick head = this.byPos.get(pos);
+        for (ScheduledTickWheel.Tick tick = head; tick != null; tick = tick.nextAtPos) {
+            if (tick.blockId == blockId) {
+                return false;
+            }
+        }
+
+        ScheduledTickWheel.Tick tick = new ScheduledTickWheel.Tick(x, y, z, blockId, time, this.nextSeq++);
+        tick.nextAtPos = head;
+        this.byPos.put(pos, tick);
+
+        long chunk = packChunk(x >> 4, z >> 4);
+        ScheduledTickWheel.Tick chunkHead = this.byChunk.get(chunk);
+        if (chunkHead != null) {
+            chunkHead.prevInChunk = tick;
+            tick.nextInChunk = chunkHead;
+        }
+        this.byChunk.put(chunk, tick);
+
+        ++this.size;
+        this.insert(tick);
+        return true;
+    }
+
+    /**
+     * Removes and returns the earliest pending tick if it is due at or before maxTime.
+     */
+    public ScheduledTickWheel.Tick poll(long maxTime) {
+        if (this.overdue.head != null) {
+            return this.overdue.head.time <= maxTime ? this.remove(this.overdue.head) : null;
+        }
+
+        while (this.size > 0 && this.cursor <= maxTime) {
+            if (this.counts[NEAR] > 0) {
+                ScheduledTickWheel.Slot slot = this.near[(int)(this.cursor & 255)];
+                if (slot.head != null) {
+                    return this.remove(slot.head);
+                }
+                if ((this.cursor & 255) != 255) {
+                    ++this.cursor;
+                    continue;
+                }
+            }
+
+            long epoch = this.nextEpoch();
+            if (epoch << 8 > maxTime) {
+                this.moveTo(maxTime + 1);
+                return null;
+            }
+            this.moveTo(epoch << 8);
+        }
+
+        if (this.size == 0 && maxTime != Long.MAX_VALUE && this.cursor <= maxTime) {
+            // Keep up with the world clock while idle so new ticks land on the wheel
+            this.moveTo(maxTime + 1);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the pending ticks of a chunk in execution order, or null if it has none.
+     *
+     * @param remove Whether to drop the returned ticks, as when the chunk unloads
+     */
+    public List<ScheduledTickWheel.Tick> getTicksInChunk(int chunkX, int chunkZ, boolean remove) {
+        ScheduledTickWheel.Tick head = this.byChunk.get(packChunk(chunkX, chunkZ));
+        if (head == null) {
+            return null;
+        }
+
+        List<ScheduledTickWheel.Tick> ticks = new ArrayList<ScheduledTickWheel.Tick>();
+        for (ScheduledTickWheel.Tick tick = head; tick != null; tick = tick.nextInChunk) {
+            ticks.add(tick);
+        }
+        Collections.sort(ticks, ORDER);
+
+        if (remove) {
+            for (ScheduledTickWheel.Tick tick : ticks) {
+                this.remove(tick);
+            }
+        }
+        return ticks;
+    }
+
+    /**
+     * Moves every pending tick by delta, for when the world time is set.
+     */
+    public void shiftTimes(long delta, long now) {
+        List<ScheduledTickWheel.Tick> ticks = new ArrayList<ScheduledTickWheel.Tick>(this.size);
+        for (ScheduledTickWheel.Tick head : this.byChunk.values(new ScheduledTickWheel.Tick[this.byChunk.size()])) {
+            for (ScheduledTickWheel.Tick tick = head; tick != null; tick = tick.nextInChunk) {
+                ticks.add(tick);
+            }
+        }
+        Collections.sort(ticks, ORDER);
+
+        for (ScheduledTickWheel.Slot slot : this.near) {
+            slot.head = slot.tail = null;
+        }
+        for (ScheduledTickWheel.Slot slot : this.far) {
+            slot.head = slot.tail = null;
+        }
+        this.overflow.head = this.overflow.tail = null;
+        this.overdue.head = this.overdue.tail = null;
+        for (int i = 0; i < this.counts.length; i++) {
+            this.counts[i] = 0;
+        }
+
+        this.cursor = now;
+        for (ScheduledTickWheel.Tick tick : ticks) {
+            tick.time += delta;
+            tick.prev = tick.next = null;
+            this.insert(tick);
+        }
+    }
+
+    private void insert(ScheduledTickWheel.Tick tick) {
+        if (tick.time < this.cursor) {
+            // Rare: keep the overdue list sorted so ticks still run in order
+            ScheduledTickWheel.Tick after = this.overdue.tail;
+            while (after != null && ORDER.compare(after, tick) > 0) {
+                after = after.prev;
+            }
+            this.link(this.overdue, after, tick);
+            return;
+        }
+
+        long epoch = tick.time >> 8;
+        long current = this.cursor >> 8;
+        if (epoch == current) {
+            this.link(this.near[(int)(tick.time & 255)], this.near[(int)(tick.time & 255)].tail, tick);
+        } else if (epoch - current <= 255) {
+            this.link(this.far[(int)(epoch & 255)], this.far[(int)(epoch & 255)].tail, tick);
+        } else {
+            this.link(this.overflow, this.overflow.tail, tick);
+        }
+    }
+
+    // The first epoch after the current one that may hold ticks; only called once the current epoch is drained
+    private long nextEpoch() {
+        long current = this.cursor >> 8;
+        if (this.counts[FAR] > 0) {
+            for (long epoch = current + 1; epoch <= current + 255; epoch++) {
+                if (this.far[(int)(epoch & 255)].head != null) {
+                    return epoch;
+                }
+            }
+        }
+
+        long min = Long.MAX_VALUE;
+        for (ScheduledTickWheel.Tick tick = this.overflow.head; tick != null; tick = tick.next) {
+            min = Math.min(min, tick.time >> 8);
+        }
+        return min == Long.MAX_VALUE ? current + 1 : Math.max(min, current + 1);
+    }
+
+    // Advances the cursor; every slot between the old and new position must already be empty
+    private void moveTo(long time) {
+        long oldEpoch = this.cursor >> 8;
+        this.cursor = time;
+        long epoch = time >> 8;
+        if (epoch == oldEpoch) {
+            return;
+        }
+
+        if (this.counts[OVERFLOW] > 0) {
+            ScheduledTickWheel.Tick tick = this.overflow.head;
+            while (tick != null) {
+                ScheduledTickWheel.Tick next = tick.next;
+                if ((tick.time >> 8) - epoch <= 255) {
+                    this.unlink(tick);
+                    this.insert(tick);
+                }
+                tick = next;
+            }
+        }
+
+        ScheduledTickWheel.Slot slot = this.far[(int)(epoch & 255)];
+        ScheduledTickWheel.Tick tick = slot.head;
+        while (tick != null) {
+            ScheduledTickWheel.Tick next = tick.next;
+            this.unlink(tick);
+            this.insert(tick);
+            tick = next;
+        }
+    }
+
+    private ScheduledTickWheel.Tick remove(ScheduledTickWheel.Tick tick) {
+        this.unlink(tick);
+        --this.size;
+
+        long pos = packPos(tick.x, tick.y, tick.z);
+        ScheduledTickWheel.Tick head = this.byPos.get(pos);
+        if (head == tick) {
+            if (tick.nextAtPos == null) {
+                this.byPos.remove(pos);
+            } else {
+                this.byPos.put(pos, tick.nextAtPos);
+            }
+        } else {
+            for (ScheduledTickWheel.Tick other = head; other != null; other = other.nextAtPos) {
+                if (other.nextAtPos == tick) {
+                    other.nextAtPos = tick.nextAtPos;
+                    break;
+                }
+            }
+        }
+
+        if (tick.prevInChunk != null) {
+            tick.prevInChunk.nextInChunk = tick.nextInChunk;
+        } else {
+            long chunk = packChunk(tick.x >> 4, tick.z >> 4);
+            if (tick.nextInChunk == null) {
+                this.byChunk.remove(chunk);
+            } else {
+                this.byChunk.put(chunk, tick.nextInChunk);
+            }
+        }
+        if (tick.nextInChunk != null) {
+            tick.nextInChunk.prevInChunk = tick.prevInChunk;
+        }
+        tick.nextAtPos = tick.prevInChunk = tick.nextInChunk = null;
+        return tick;
+    }
+
+    private void link(ScheduledTickWheel.Slot slot, ScheduledTickWheel.Tick after, ScheduledTickWheel.Tick tick) {
+        tick.slot = slot;
+        tick.prev = after;
+        tick.next = after == null ? slot.head : after.next;
+        if (tick.prev == null) {
+            slot.head = tick;
+        } else {
+            tick.prev.next = tick;
+        }
+        if (tick.next == null) {
+            slot.tail = tick;
+        } else {
+            tick.next.prev = tick;
+        }
+        ++this.counts[slot.level];
+    }
+
+    private void unlink(ScheduledTickWheel.Tick tick) {
+        ScheduledTickWheel.Slot slot = tick.slot;
+        if (tick.prev == null) {
+            slot.head = tick.next;
+        } else {
+            tick.prev.next = tick.next;
+        }
+        if (tick.next == null) {
+            slot.tail = tick.prev;
+        } else {
+            tick.next.prev = tick.prev;
+        }
+        tick.prev = tick.next = null;
+        tick.slot = null;
+        --this.counts[slot.level];
+    }
+
+    private static long packPos(int x, int y, int z) {
+        return (long)x << 38 | ((long)z & 0x3FFFFFFL) << 12 | y & 0xFFFL;
+    }
+
+    private static long packChunk(int chunkX, int chunkZ) {
+        return (long)chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+    }
+
+    private static class Slot {
+        private final int level;
+        private ScheduledTickWheel.Tick head;
+        private ScheduledTickWheel.Tick tail;
+
+        private Slot(int level) {
+            this.level = level;
+        }
+    }
+
+    public static class Tick {
+        public final int x;
+        public final int y;
+        public final int z;
+        public final int blockId;
+        private long time;
+        private final long seq;
+        private ScheduledTickWheel.Slot slot;
+        private ScheduledTickWheel.Tick prev;
+        private ScheduledTickWheel.Tick next;
+        private ScheduledTickWheel.Tick nextAtPos;
+        private ScheduledTickWheel.Tick prevInChunk;
+        private ScheduledTickWheel.Tick nextInChunk;
+
+        private Tick(int x, int y, int z, int blockId, long time, long seq) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.blockId = blockId;
+            this.time = time;
+            this.seq = seq;
+        }
+
+        public long getTime() {
+            return this.time;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package fr.catcore.fabricatedforge.util;
+
+import fr.catcore.fabricatedforge.mixininterface.IBlockEntity;
+import net.minecraft.block.entity.BlockEntity;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Block entities a world has taken off its tick list because they went to sleep,
+ * indexed by position for neighbor wake-ups and by wake time for timed ones.
+ */
+public class SleepingBlockEntities {
+    private final Map<Long, SleepingBlockEntities.Sleeper> byPos = new HashMap<Long, SleepingBlockEntities.Sleeper>();
+    private final PriorityQueue<SleepingBlockEntities.Sleeper> timers = new PriorityQueue<SleepingBlockEntities.Sleeper>();
+    // Timers of sleepers no longer in byPos, left in the queue until there are enough to rebuild it
+    private int deadTimers;
+
+    public boolean isEmpty() {
+        return this.byPos.isEmpty();
+    }
+
+    public int size() {
+        return this.byPos.size();
+    }
+
+    /**
+     * @param wakeTime The world time to wake the block entity at, or a negative value to only wake it on demand
+     */
+    public void add(BlockEntity tile, long wakeTime) {
+        SleepingBlockEntities.Sleeper sleeper = new SleepingBlockEntities.Sleeper(tile, wakeTime);
+        this.forget(this.byPos.put(key(tile.x, tile.y, tile.z), sleeper));
+        if (wakeTime >= 0) {
+            sleeper.queued = true;
+            this.timers.add(sleeper);
+        }
+    }
+
+    /**
+     * Returns the sleeping block entity at the given position, or null if there is none.
+     */
+    public BlockEntity get(int x, int y, int z) {
+        SleepingBlockEntities.Sleeper sleeper = this.byPos.get(key(x, y, z));
+        return sleeper == null ? null : sleeper.tile;
+    }
+
+    public boolean remove(BlockEntity tile) {
+        Long key = key(tile.x, tile.y, tile.z);
+        SleepingBlockEntities.Sleeper sleeper = this.byPos.get(key);
+        if (sleeper != null && sleeper.tile == tile) {
+            this.byPos.remove(key);
+            this.forget(sleeper);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds every block entity whose wake time has been reached to the given list. They
+     * stay registered until they are woken and removed. Block entities removed from the
+     * world while asleep are dropped instead.
+     */
+    public void pollDue(long now, List<BlockEntity> due) {
+        if (this.deadTimers > 64 && this.deadTimers > this.timers.size() / 2) {
+            this.timers.clear();
+            for (SleepingBlockEntities.Sleeper sleeper : this.byPos.values()) {
+                if (sleeper.queued) {
+                    this.timers.add(sleeper);
+                }
+            }
+            this.deadTimers = 0;
+        }
+
+        while (!this.timers.isEmpty() && this.timers.peek().wakeTime <= now) {
+            SleepingBlockEntities.Sleeper sleeper = this.timers.poll();
+            sleeper.queued = false;
+            Long key = key(sleeper.tile.x, sleeper.tile.y, sleeper.tile.z);
+            if (this.byPos.get(key) != sleeper) {
+                // Woken or replaced some other way
+                --this.deadTimers;
+            } else if (sleeper.tile.isRemoved()) {
+                this.byPos.remove(key);
+            } else {
+                due.add(sleeper.tile);
+            }
+        }
+    }
+
+    /**
+     * Moves every wake time by the given number of ticks, for when the world time is set.
+     * A wake time moved below zero is clamped to zero so the block entity still wakes.
+     */
+    public void shiftTimes(long delta) {
+        this.timers.clear();
+        for (SleepingBlockEntities.Sleeper sleeper : this.byPos.values()) {
+            if (sleeper.queued) {
+                sleeper.wakeTime = Math.max(sleeper.wakeTime + delta, 0L);
+                ((IBlockEntity)sleeper.tile).sleep(sleeper.wakeTime);
+                this.timers.add(sleeper);
+            }
+        }
+        this.deadTimers = 0;
+    }
+
+    private void forget(SleepingBlockEntities.Sleeper sleeper) {
+        if (sleeper != null && sleeper.queued) {
+            ++this.deadTimers;
+        }
+    }
+
+    private static Long key(int x, int y, int z) {
+        return (long)x << 38 | ((long)z & 0x3FFFFFFL) << 12 | y & 0xFFFL;
+    }
+
+    private static class Sleeper implements Comparable<SleepingBlockEntities.Sleeper> {
+        private final BlockEntity tile;
+        private long wakeTime;
+        private boolean queued;
+
+        private Sleeper(BlockEntity tile, long wakeTime) {
+            this.tile = tile;
+            this.wakeTime = wakeTime;
+        }
+
+        public int compareTo(SleepingBlockEntities.Sleeper other) {
+            return this.wakeTime < other.wakeTime ? -1 : this.wakeTime > other.wakeTime ? 1 : 0;
+        }
+    }
+}
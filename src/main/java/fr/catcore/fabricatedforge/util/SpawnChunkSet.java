@@ -0,0 +1,114 @@
+package fr.catcore.fabricatedforge.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Reusable set of chunk coordinates with an edge flag per chunk, used for the chunks
+ * eligible for mob spawning. Coordinates are packed into longs in an open-addressing
+ * table and every array is kept between spawn passes, so refilling and shuffling the
+ * set allocates nothing once it has grown to the largest player spread seen.
+ */
+public class SpawnChunkSet {
+    private final Random random = new Random();
+    private long[] keys = new long[256];
+    private int[] slots = new int[512];
+    private long[] edges = new long[4];
+    private int[] order = new int[256];
+    private int size;
+
+    public void clear() {
+        Arrays.fill(this.slots, 0);
+        Arrays.fill(this.edges, 0L);
+        this.size = 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Adds the chunk. A chunk inside some player's area is never an edge chunk, even
+     * if another player has it on the edge of theirs.
+     */
+    public void add(int x, int z, boolean edge) {
+        long key = (long)x << 32 | z & 0xFFFFFFFFL;
+        int mask = this.slots.length - 1;
+        int slot = hash(key) & mask;
+        while (this.slots[slot] != 0) {
+            int index = this.slots[slot] - 1;
+            if (this.keys[index] == key) {
+                if (!edge) {
+                    this.edges[index >>> 6] &= ~(1L << index);
+                }
+                return;
+            }
+            slot = slot + 1 & mask;
+        }
+
+        if (this.size == this.keys.length) {
+            this.grow();
+            this.add(x, z, edge);
+            return;
+        }
+
+        int index = this.size++;
+        this.keys[index] = key;
+        this.slots[slot] = index + 1;
+        if (edge) {
+            this.edges[index >>> 6] |= 1L << index;
+        }
+    }
+
+    /**
+     * Shuffles the iteration order; the i-th chunk in that order is read with
+     * {@link #getX}, {@link #getZ} and {@link #isEdge}.
+     */
+    public void shuffle() {
+        for (int i = 0; i < this.size; i++) {
+            this.order[i] = i;
+        }
+        for (int i = this.size - 1; i > 0; i--) {
+            int j = this.random.nextInt(i + 1);
+            int swap = this.order[i];
+            this.order[i] = this.order[j];
+            this.order[j] = swap;
+        }
+    }
+
+    public int getX(int i) {
+        return (int)(this.keys[this.order[i]] >> 32);
+    }
+
+    public int getZ(int i) {
+        return (int)this.keys[this.order[i]];
+    }
+
+    public boolean isEdge(int i) {
+        int index = this.order[i];
+        return (this.edges[index >>> 6] & 1L << index) != 0;
+    }
+
+    private void grow() {
+        int capacity = this.keys.length * 2;
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.edges = Arrays.copyOf(this.edges, capacity >>> 6);
+        this.order = new int[capacity];
+        this.slots = new int[capacity * 2];
+        int mask = this.slots.length - 1;
+        for (int index = 0; index < this.size; index++) {
+            int slot = hash(this.keys[index]) & mask;
+            while (this.slots[slot] != 0) {
+                slot = slot + 1 & mask;
+            }
+            this.slots[slot] = index + 1;
+        }
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        return (int)key;
+    }
+}
@@ -0,0 +1,129 @@
+package net.minecraftforge.common;
+
+import fr.catcore.fabricatedforge.mixininterface.IWorld;
+import net.minecraft.server.world.ServerWorld;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optional per-chunk tick cost accounting for server worlds, enabled with
+ * -Dforge.profileChunks=true and read with the op-only forgechunks command. Time is split
+ * by {@link TickBudget} part, so a lag machine shows up with what it is spending on.
+ */
+public class ChunkTickProfiler {
+    public static final String COMMAND_NAME = "forgechunks";
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("forge.profileChunks", "false"));
+    private final Map<Long, ChunkTickProfiler.Stats> stats = new HashMap<Long, ChunkTickProfiler.Stats>();
+    private long ticks;
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public void tick() {
+        ++this.ticks;
+    }
+
+    public void record(int chunkX, int chunkZ, TickBudget part, long nanos) {
+        Long key = (long)chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+        ChunkTickProfiler.Stats stat = this.stats.get(key);
+        if (stat == null) {
+            stat = new ChunkTickProfiler.Stats(chunkX, chunkZ);
+            this.stats.put(key, stat);
+        }
+
+        stat.nanos[part.ordinal()] += nanos;
+        stat.totalNanos += nanos;
+        if (nanos > stat.maxNanos) {
+            stat.maxNanos = nanos;
+        }
+    }
+
+    public void reset() {
+        this.stats.clear();
+        this.ticks = 0;
+    }
+
+    /**
+     * Formats the chunks with the highest total tick time over all server worlds, most expensive first.
+     *
+     * @param limit The maximum number of chunks to report, or -1 for all of them
+     */
+    public static List<String> dump(int limit) {
+        List<ChunkTickProfiler.Stats> sorted = new ArrayList<ChunkTickProfiler.Stats>();
+        for (ServerWorld world : DimensionManager.getWorlds()) {
+            ChunkTickProfiler profiler = ((IWorld)world).getChunkTickProfiler();
+            if (profiler != null) {
+                for (ChunkTickProfiler.Stats stat : profiler.stats.values()) {
+                    stat.dimension = world.dimension.dimensionType;
+                    stat.ticks = profiler.ticks;
+                    sorted.add(stat);
+                }
+            }
+        }
+
+        Collections.sort(sorted, new Comparator<ChunkTickProfiler.Stats>() {
+            public int compare(ChunkTickProfiler.Stats a, ChunkTickProfiler.Stats b) {
+                long diff = b.totalNanos - a.totalNanos;
+                return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+            }
+        });
+
+        List<String> lines = new ArrayList<String>();
+        for (ChunkTickProfiler.Stats stat : sorted) {
+            if (limit >= 0 && lines.size() >= limit) {
+                break;
+            }
+            lines.add(stat.toString());
+        }
+        return lines;
+    }
+
+    public static void resetAll() {
+        for (ServerWorld world : DimensionManager.getWorlds()) {
+            ChunkTickProfiler profiler = ((IWorld)world).getChunkTickProfiler();
+            if (profiler != null) {
+                profiler.reset();
+            }
+        }
+    }
+
+    private static class Stats {
+        private final int chunkX;
+        private final int chunkZ;
+        private final long[] nanos = new long[TickBudget.values().length];
+        private long totalNanos;
+        private long maxNanos;
+        private int dimension;
+        private long ticks;
+
+        private Stats(int chunkX, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        @Override
+        public String toString() {
+            long ticks = Math.max(this.ticks, 1);
+            StringBuilder parts = new StringBuilder();
+            for (TickBudget part : TickBudget.values()) {
+                long time = this.nanos[part.ordinal()];
+                if (time > 0) {
+                    if (parts.length() > 0) {
+                        parts.append(", ");
+                    }
+                    parts.append(String.format("%s %.3f", part.getDisplayName(), time / 1000000.0D / ticks));
+                }
+            }
+
+            return String.format("dim %d [%d, %d] (block %d, %d): %.3f ms/tick (%s), %.3f ms max",
+                    this.dimension, this.chunkX, this.chunkZ, this.chunkX << 4, this.chunkZ << 4,
+                    this.totalNanos / 1000000.0D / ticks, parts, this.maxNanos / 1000000.0D);
+        }
+    }
+}
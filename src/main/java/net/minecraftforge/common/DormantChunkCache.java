@@ -0,0 +1,241 @@
+package net.minecraftforge.common;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import cpw.mods.fml.common.FMLLog;
+import fr.catcore.fabricatedforge.mixininterface.IServerChunkProvider;
+import fr.catcore.fabricatedforge.mixininterface.IThreadedAnvilChunkStorage;
+import fr.catcore.fabricatedforge.util.ChunkCodec;
+import fr.catcore.fabricatedforge.util.ChunkNbtReader;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.ChunkStorage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The unloaded chunks of one server world kept in memory, so loading them again skips the
+ * region file. Bounded by an estimate of the heap the chunks hold when dormantChunkCacheMaxMegabytes
+ * is set, by chunk count otherwise. In compact mode a chunk is kept as its saved NBT compressed
+ * with the fast codec, several times smaller than the Chunk object, and restored through the
+ * normal chunk loading path. Hits, misses and evictions are shown by the op-only forgedormant command.
+ */
+public class DormantChunkCache {
+    public static final String COMMAND_NAME = "forgedormant";
+    // Rough heap costs, including object headers and the arrays' bookkeeping
+    private static final int CHUNK_BYTES = 4096;
+    private static final int SECTION_BYTES = 10400;
+    private static final int NIBBLE_ARRAY_BYTES = 2064;
+    private static final int ENTITY_BYTES = 1024;
+    private static final int BLOCK_ENTITY_BYTES = 256;
+    private static final int COMPACT_BYTES = 64;
+    private final ServerWorld world;
+    private final Cache<Long, Object> cache;
+    private final long maxBytes;
+    private final boolean compact;
+    private long bytes;
+    private int compactChunks;
+    private long compactFallbacks;
+    private CacheStats baseline = new CacheStats(0, 0, 0, 0, 0, 0);
+
+    private DormantChunkCache(ServerWorld world, int maxChunks, long maxBytes, boolean compact) {
+        this.world = world;
+        this.maxBytes = maxBytes;
+        this.compact = compact;
+        // One segment, so the whole budget is shared instead of split between segments
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().concurrencyLevel(1).recordStats();
+        if (maxBytes > 0) {
+            builder.maximumWeight(maxBytes).weigher(new Weigher<Long, Object>() {
+                public int weigh(Long key, Object value) {
+                    return DormantChunkCache.weigh(value);
+                }
+            });
+        } else {
+            builder.maximumSize(maxChunks);
+        }
+
+        this.cache = builder.removalListener(new RemovalListener<Long, Object>() {
+            public void onRemoval(RemovalNotification<Long, Object> notification) {
+                DormantChunkCache.this.removed(notification.getValue());
+            }
+        }).build();
+    }
+
+    /**
+     * Returns the cache configured for the world, or null if dormant chunks are disabled for it.
+     */
+    static DormantChunkCache create(ServerWorld world, int maxChunks, int maxMegabytes, boolean compact) {
+        if (maxMegabytes <= 0 && maxChunks <= 0) {
+            return null;
+        }
+
+        FMLLog.info("Dormant chunk cache for dimension %d holds %s%s", world.dimension.dimensionType,
+                maxMegabytes > 0 ? maxMegabytes + " MB" : maxChunks + " chunks", compact ? ", compacted" : "");
+        return new DormantChunkCache(world, maxChunks, (long)maxMegabytes << 20, compact);
+    }
+
+    public void put(long coords, Chunk chunk) {
+        Object value = chunk;
+        if (this.compact) {
+            value = this.compact(chunk);
+            if (value == null) {
+                ++this.compactFallbacks;
+                value = chunk;
+            }
+        }
+
+        this.bytes += weigh(value);
+        if (value instanceof DormantChunkCache.CompactChunk) {
+            ++this.compactChunks;
+        }
+        this.cache.put(coords, value);
+    }
+
+    /**
+     * Takes the chunk out of the cache, rebuilding it if it was compacted, or returns null on a miss.
+     */
+    public Chunk fetch(long coords) {
+        Object value = this.cache.getIfPresent(coords);
+        if (value == null) {
+            return null;
+        }
+
+        // Once loaded the chunk lives in the provider; a copy here would only go stale
+        this.cache.invalidate(coords);
+        if (value instanceof Chunk) {
+            return (Chunk)value;
+        }
+
+        return this.restore((int)coords, (int)(coords >> 32), (DormantChunkCache.CompactChunk)value);
+    }
+
+    public boolean contains(long coords) {
+        return this.cache.asMap().containsKey(coords);
+    }
+
+    public void clear() {
+        this.cache.invalidateAll();
+    }
+
+    public String getStats() {
+        CacheStats stats = this.cache.stats().minus(this.baseline);
+        return String.format("%d chunks (%d compact), %.1f MB%s, %d hits, %d misses (%.1f%% hit rate), %d evicted, %d not compacted",
+                this.cache.size(), this.compactChunks, this.bytes / 1048576.0D,
+                this.maxBytes > 0 ? String.format(" of %.0f MB", this.maxBytes / 1048576.0D) : "",
+                stats.hitCount(), stats.missCount(), stats.hitRate() * 100.0D, stats.evictionCount(), this.compactFallbacks);
+    }
+
+    public void resetStats() {
+        this.baseline = this.cache.stats();
+        this.compactFallbacks = 0;
+    }
+
+    private void removed(Object value) {
+        this.bytes -= weigh(value);
+        if (value instanceof DormantChunkCache.CompactChunk) {
+            --this.compactChunks;
+        }
+    }
+
+    // The chunk was saved just before it went dormant, so its NBT is still in the save queue
+    private DormantChunkCache.CompactChunk compact(Chunk chunk) {
+        IThreadedAnvilChunkStorage storage = this.getStorage();
+        NbtCompound data = storage == null ? null : storage.getPendingChunkData(chunk.chunkX, chunk.chunkZ);
+        if (data == null) {
+            return null;
+        }
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(65536);
+            NbtIo.method_1345(data, new DataOutputStream(out));
+            return new DormantChunkCache.CompactChunk(ChunkCodec.FAST.compress(out.toByteArray(), out.size()));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Chunk restore(int chunkX, int chunkZ, DormantChunkCache.CompactChunk value) {
+        IThreadedAnvilChunkStorage storage = this.getStorage();
+        if (storage == null) {
+            return null;
+        }
+
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(ChunkCodec.FAST.decompress(value.data)));
+            return storage.loadChunkData(this.world, chunkX, chunkZ, ChunkNbtReader.read(in));
+        } catch (IOException e) {
+            // Fall back to the region file
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private IThreadedAnvilChunkStorage getStorage() {
+        ChunkStorage storage = ((IServerChunkProvider)this.world.chunkCache).getChunkWriter();
+        return storage instanceof IThreadedAnvilChunkStorage ? (IThreadedAnvilChunkStorage)storage : null;
+    }
+
+    private static int weigh(Object value) {
+        if (value instanceof DormantChunkCache.CompactChunk) {
+            return ((DormantChunkCache.CompactChunk)value).data.length + COMPACT_BYTES;
+        }
+
+        Chunk chunk = (Chunk)value;
+        int weight = CHUNK_BYTES;
+        for (ChunkSection section : chunk.getBlockStorage()) {
+            if (section != null) {
+                weight += SECTION_BYTES;
+                if (section.method_3944() != null) {
+                    weight += NIBBLE_ARRAY_BYTES;
+                }
+            }
+        }
+
+        for (List entities : chunk.entities) {
+            weight += entities.size() * ENTITY_BYTES;
+        }
+        return weight + chunk.blockEntities.size() * BLOCK_ENTITY_BYTES;
+    }
+
+    /**
+     * Formats the dormant chunk cache stats of every loaded server world.
+     */
+    public static List<String> dump(boolean reset) {
+        List<String> lines = new ArrayList<String>();
+        for (ServerWorld world : DimensionManager.getWorlds()) {
+            DormantChunkCache cache = ForgeChunkManager.getDormantChunkCache(world);
+            if (cache != null) {
+                lines.add("dim " + world.dimension.dimensionType + ": " + cache.getStats());
+                if (reset) {
+                    cache.resetStats();
+                }
+            }
+        }
+
+        if (lines.isEmpty()) {
+            lines.add("No dormant chunk caches, see dormantChunkCacheSize in forgeChunkLoading.cfg");
+        }
+        return lines;
+    }
+
+    private static class CompactChunk {
+        private final byte[] data;
+
+        private CompactChunk(byte[] data) {
+            this.data = data;
+        }
+    }
+}
@@ -1,12 +1,11 @@
 package net.minecraftforge.common;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.*;
 import cpw.mods.fml.common.FMLLog;
 import cpw.mods.fml.common.Loader;
 import cpw.mods.fml.common.ModContainer;
 import fr.catcore.fabricatedforge.mixininterface.IServerWorld;
+import fr.catcore.fabricatedforge.util.LongObjectMap;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.nbt.NbtCompound;
@@ -32,13 +31,16 @@ public class ForgeChunkManager {
     private static Map<String, Integer> chunkConstraints = Maps.newHashMap();
     private static SetMultimap<String, ForgeChunkManager.Ticket> playerTickets = HashMultimap.create();
     private static Map<String, ForgeChunkManager.LoadingCallback> callbacks = Maps.newHashMap();
-    private static Map<World, ImmutableSetMultimap<ChunkPos, ForgeChunkManager.Ticket>> forcedChunks = (new MapMaker()).weakKeys().makeMap();
+    private static Map<World, ForgeChunkManager.ForcedChunks> forcedChunks = (new MapMaker()).weakKeys().makeMap();
     private static BiMap<UUID, ForgeChunkManager.Ticket> pendingEntities = HashBiMap.create();
-    private static Map<World, Cache<Long, Chunk>> dormantChunkCache = (new MapMaker()).weakKeys().makeMap();
+    private static Map<World, DormantChunkCache> dormantChunkCache = (new MapMaker()).weakKeys().makeMap();
     private static File cfgFile;
     private static Configuration config;
     private static int playerTicketLength;
     private static int dormantChunkCacheSize;
+    private static int dormantChunkCacheMaxMegabytes;
+    private static Map<Integer, Integer> dormantChunkCacheDimensionMegabytes = new HashMap<Integer, Integer>();
+    private static boolean dormantChunkCacheCompact;
 
     public ForgeChunkManager() {
     }
@@ -46,10 +48,15 @@ public class ForgeChunkManager {
     static void loadWorld(World world) {
         ArrayListMultimap<String, ForgeChunkManager.Ticket> newTickets = ArrayListMultimap.create();
         ForgeChunkManager.tickets.put(world, newTickets);
-        forcedChunks.put(world, ImmutableSetMultimap.of());
+        forcedChunks.put(world, new ForgeChunkManager.ForcedChunks());
         if (world instanceof ServerWorld) {
-            dormantChunkCache.put(world, CacheBuilder.newBuilder().maximumSize((long)dormantChunkCacheSize).build());
             ServerWorld worldServer = (ServerWorld)world;
+            Integer dimensionMegabytes = dormantChunkCacheDimensionMegabytes.get(world.dimension.dimensionType);
+            DormantChunkCache cache = DormantChunkCache.create(worldServer, dormantChunkCacheSize, dimensionMegabytes != null ? dimensionMegabytes : dormantChunkCacheMaxMegabytes, dormantChunkCacheCompact);
+            if (cache != null) {
+                dormantChunkCache.put(world, cache);
+            }
+
             File chunkDir = ((IServerWorld)worldServer).getChunkSaveLocation();
             File chunkLoaderData = new File(chunkDir, "forcedchunks.dat");
             if (chunkLoaderData.exists() && chunkLoaderData.isFile()) {
@@ -270,9 +277,7 @@ public class ForgeChunkManager {
             return;
         }
         ticket.requestedChunks.add(chunk);
-        ImmutableSetMultimap<ChunkPos, Ticket> oldMap = forcedChunks.get(ticket.world);
-        ImmutableSetMultimap<ChunkPos, Ticket> newMap = ImmutableSetMultimap.<ChunkPos,Ticket>builder().putAll(oldMap == null ? ImmutableSetMultimap.<ChunkPos,Ticket>builder().build() : oldMap).put(chunk, ticket).build();
-        forcedChunks.put(ticket.world, newMap);
+        getForcedChunks(ticket.world).add(chunk, ticket);
         if (ticket.maxDepth > 0 && ticket.requestedChunks.size() > ticket.maxDepth)
         {
             ChunkPos removed = ticket.requestedChunks.iterator().next();
@@ -290,10 +295,7 @@ public class ForgeChunkManager {
     public static void unforceChunk(ForgeChunkManager.Ticket ticket, ChunkPos chunk) {
         if (ticket != null && chunk != null) {
             ticket.requestedChunks.remove(chunk);
-            LinkedHashMultimap<ChunkPos, ForgeChunkManager.Ticket> copy = LinkedHashMultimap.create(forcedChunks.get(ticket.world));
-            copy.remove(chunk, ticket);
-            ImmutableSetMultimap<ChunkPos, ForgeChunkManager.Ticket> newMap = ImmutableSetMultimap.copyOf(copy);
-            forcedChunks.put(ticket.world, newMap);
+            getForcedChunks(ticket.world).remove(chunk, ticket);
         }
     }
 
@@ -313,7 +315,39 @@ public class ForgeChunkManager {
     }
 
     public static SetMultimap<ChunkPos, ForgeChunkManager.Ticket> getPersistentChunksFor(World world) {
-        return forcedChunks.containsKey(world) ? forcedChunks.get(world) : ImmutableSetMultimap.of();
+        ForgeChunkManager.ForcedChunks forced = forcedChunks.get(world);
+        return forced != null ? forced.snapshot() : ImmutableSetMultimap.<ChunkPos, ForgeChunkManager.Ticket>of();
+    }
+
+    /**
+     * Whether any ticket forces the given chunk, without building the persistent chunk multimap
+     * or allocating a {@link ChunkPos}. Prefer this over {@link #getPersistentChunksFor} on hot paths.
+     */
+    public static boolean isChunkForced(World world, int chunkX, int chunkZ) {
+        ForgeChunkManager.ForcedChunks forced = forcedChunks.get(world);
+        return forced != null && forced.positions.containsKey(ChunkPos.getIdFromCoords(chunkX, chunkZ));
+    }
+
+    public static boolean hasForcedChunks(World world) {
+        ForgeChunkManager.ForcedChunks forced = forcedChunks.get(world);
+        return forced != null && !forced.positions.isEmpty();
+    }
+
+    private static ForgeChunkManager.ForcedChunks getForcedChunks(World world) {
+        ForgeChunkManager.ForcedChunks forced = forcedChunks.get(world);
+        if (forced == null) {
+            forced = new ForgeChunkManager.ForcedChunks();
+            forcedChunks.put(world, forced);
+        }
+        return forced;
+    }
+
+    static void unloadWorld(World world) {
+        // Dormant chunks reference their world, so the weak key alone would never let it go
+        DormantChunkCache cache = dormantChunkCache.remove(world);
+        if (cache != null) {
+            cache.clear();
+        }
     }
 
     static void saveWorld(World world) {
@@ -387,7 +421,7 @@ public class ForgeChunkManager {
     }
 
     public static void putDormantChunk(long coords, Chunk chunk) {
-        Cache<Long, Chunk> cache = dormantChunkCache.get(chunk.world);
+        DormantChunkCache cache = dormantChunkCache.get(chunk.world);
         if (cache != null) {
             cache.put(coords, chunk);
         }
@@ -395,8 +429,20 @@ public class ForgeChunkManager {
     }
 
     public static Chunk fetchDormantChunk(long coords, World world) {
-        Cache<Long, Chunk> cache = dormantChunkCache.get(world);
-        return cache == null ? null : cache.getIfPresent(coords);
+        DormantChunkCache cache = dormantChunkCache.get(world);
+        return cache == null ? null : cache.fetch(coords);
+    }
+
+    /**
+     * Checks for a dormant chunk without counting a hit or a miss, e.g. to skip a disk read.
+     */
+    public static boolean hasDormantChunk(long coords, World world) {
+        DormantChunkCache cache = dormantChunkCache.get(world);
+        return cache != null && cache.contains(coords);
+    }
+
+    static DormantChunkCache getDormantChunkCache(World world) {
+        return dormantChunkCache.get(world);
     }
 
     static void captureConfig(File configDir) {
@@ -430,6 +476,15 @@ public class ForgeChunkManager {
         dormantChunkCacheSizeProperty.comment = "Unloaded chunks can first be kept in a dormant cache for quicker\nloading times. Specify the size of that cache here";
         dormantChunkCacheSize = dormantChunkCacheSizeProperty.getInt(0);
         FMLLog.info("Configured a dormant chunk cache size of %d", dormantChunkCacheSizeProperty.getInt(0));
+        Property dormantChunkCacheMaxMegabytesProperty = config.get("defaults", "dormantChunkCacheMaxMegabytes", 0);
+        dormantChunkCacheMaxMegabytesProperty.comment = "Bounds the dormant cache of each dimension by the memory its chunks take, in megabytes,\ninstead of by dormantChunkCacheSize. Zero keeps the chunk count limit";
+        dormantChunkCacheMaxMegabytes = dormantChunkCacheMaxMegabytesProperty.getInt(0);
+        Property dormantChunkCacheDimensionsProperty = config.get("defaults", "dormantChunkCacheDimensionMegabytes", "");
+        dormantChunkCacheDimensionsProperty.comment = "Per dimension overrides of dormantChunkCacheMaxMegabytes, as dimension=megabytes pairs\nseparated by commas, e.g. -1=16,1=8";
+        dormantChunkCacheDimensionMegabytes = parseDimensionMegabytes(dormantChunkCacheDimensionsProperty.value);
+        Property dormantChunkCacheCompactProperty = config.get("defaults", "dormantChunkCacheCompact", false);
+        dormantChunkCacheCompactProperty.comment = "Keep dormant chunks as their compressed save data instead of whole chunks.\nFits several times more chunks in the same memory, at some CPU cost on unload and reload";
+        dormantChunkCacheCompact = dormantChunkCacheCompactProperty.getBoolean(false);
         Property modOverridesEnabled = config.get("defaults", "enabled", true);
         modOverridesEnabled.comment = "Are mod overrides enabled?";
         overridesEnabled = modOverridesEnabled.getBoolean(true);
@@ -450,6 +505,23 @@ public class ForgeChunkManager {
         }
     }
 
+    private static Map<Integer, Integer> parseDimensionMegabytes(String value) {
+        Map<Integer, Integer> result = new HashMap<Integer, Integer>();
+        for (String pair : value.split(",")) {
+            if (pair.trim().isEmpty()) {
+                continue;
+            }
+
+            String[] parts = pair.split("=");
+            try {
+                result.put(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            } catch (RuntimeException e) {
+                FMLLog.warning("Ignoring invalid dormant chunk cache setting %s", pair);
+            }
+        }
+        return result;
+    }
+
     public static Map<String, Property> getConfigMapFor(Object mod) {
         ModContainer container = getContainer(mod);
         if (container != null) {
@@ -468,6 +540,40 @@ public class ForgeChunkManager {
 
     }
 
+    /**
+     * The forced chunks of one world. Changes are applied in place, the immutable multimap
+     * handed out by {@link #getPersistentChunksFor} is only rebuilt when it is next asked for,
+     * and the packed coordinates answer {@link #isChunkForced} without allocating.
+     */
+    private static class ForcedChunks {
+        private final SetMultimap<ChunkPos, ForgeChunkManager.Ticket> tickets = LinkedHashMultimap.create();
+        private final LongObjectMap<ChunkPos> positions = new LongObjectMap<ChunkPos>();
+        private ImmutableSetMultimap<ChunkPos, ForgeChunkManager.Ticket> snapshot = ImmutableSetMultimap.of();
+
+        private void add(ChunkPos chunk, ForgeChunkManager.Ticket ticket) {
+            if (this.tickets.put(chunk, ticket)) {
+                this.positions.put(ChunkPos.getIdFromCoords(chunk.x, chunk.z), chunk);
+                this.snapshot = null;
+            }
+        }
+
+        private void remove(ChunkPos chunk, ForgeChunkManager.Ticket ticket) {
+            if (this.tickets.remove(chunk, ticket)) {
+                if (!this.tickets.containsKey(chunk)) {
+                    this.positions.remove(ChunkPos.getIdFromCoords(chunk.x, chunk.z));
+                }
+                this.snapshot = null;
+            }
+        }
+
+        private ImmutableSetMultimap<ChunkPos, ForgeChunkManager.Ticket> snapshot() {
+            if (this.snapshot == null) {
+                this.snapshot = ImmutableSetMultimap.copyOf(this.tickets);
+            }
+            return this.snapshot;
+        }
+    }
+
     public static class Ticket {
         private String modId;
         private ForgeChunkManager.Type ticketType;
@@ -8,12 +8,16 @@ import cpw.mods.fml.common.ModMetadata;
 import cpw.mods.fml.common.WorldAccessContainer;
 import cpw.mods.fml.common.event.FMLPostInitializationEvent;
 import cpw.mods.fml.common.event.FMLPreInitializationEvent;
+import cpw.mods.fml.common.event.FMLServerStartingEvent;
+import fr.catcore.fabricatedforge.util.ChunkSaveQueue;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.world.WorldSaveHandler;
 import net.minecraft.world.level.LevelProperties;
+import net.minecraftforge.event.EventProfiler;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 public class ForgeDummyContainer extends DummyModContainer implements WorldAccessContainer {
@@ -47,6 +51,40 @@ public class ForgeDummyContainer extends DummyModContainer implements WorldAcces
         ForgeChunkManager.loadConfiguration();
     }
 
+    @Subscribe
+    public void serverStarting(FMLServerStartingEvent evt) {
+        evt.registerServerCommand(new StatsCommand(ChunkSaveQueue.COMMAND_NAME, "reset") {
+            protected List<String> dump(String option) {
+                return ChunkSaveQueue.dump(option != null);
+            }
+        });
+        if (EventProfiler.isEnabled()) {
+            evt.registerServerCommand(new StatsCommand(EventProfiler.COMMAND_NAME, "all", "reset") {
+                protected List<String> dump(String option) {
+                    if ("reset".equals(option)) {
+                        EventProfiler.reset();
+                    }
+                    return EventProfiler.dump("all".equals(option) ? -1 : 10);
+                }
+            });
+        }
+        evt.registerServerCommand(new StatsCommand(DormantChunkCache.COMMAND_NAME, "reset") {
+            protected List<String> dump(String option) {
+                return DormantChunkCache.dump(option != null);
+            }
+        });
+        if (ChunkTickProfiler.isEnabled()) {
+            evt.registerServerCommand(new StatsCommand(ChunkTickProfiler.COMMAND_NAME, "all", "reset") {
+                protected List<String> dump(String option) {
+                    if ("reset".equals(option)) {
+                        ChunkTickProfiler.resetAll();
+                    }
+                    return ChunkTickProfiler.dump("all".equals(option) ? -1 : 10);
+                }
+            });
+        }
+    }
+
     public NbtCompound getDataForWriting(WorldSaveHandler handler, LevelProperties info) {
         NbtCompound forgeData = new NbtCompound();
         NbtCompound dimData = DimensionManager.saveDimensionDataMap();
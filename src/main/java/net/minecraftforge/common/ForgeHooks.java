@@ -210,11 +210,13 @@ public class ForgeHooks {
     }
 
     public static void onLivingSetAttackTarget(MobEntity entity, MobEntity target) {
-        MinecraftForge.EVENT_BUS.post(new LivingSetAttackTargetEvent(entity, target));
+        if (MinecraftForge.EVENT_BUS.hasListeners(LivingSetAttackTargetEvent.class)) {
+            MinecraftForge.EVENT_BUS.post(new LivingSetAttackTargetEvent(entity, target));
+        }
     }
 
     public static boolean onLivingUpdate(MobEntity entity) {
-        return MinecraftForge.EVENT_BUS.post(new LivingEvent.LivingUpdateEvent(entity));
+        return MinecraftForge.EVENT_BUS.hasListeners(LivingEvent.LivingUpdateEvent.class) && MinecraftForge.EVENT_BUS.post(new LivingEvent.LivingUpdateEvent(entity));
     }
 
     public static boolean onLivingAttack(MobEntity entity, DamageSource src, int amount) {
@@ -244,7 +246,9 @@ public class ForgeHooks {
     }
 
     public static void onLivingJump(MobEntity entity) {
-        MinecraftForge.EVENT_BUS.post(new LivingEvent.LivingJumpEvent(entity));
+        if (MinecraftForge.EVENT_BUS.hasListeners(LivingEvent.LivingJumpEvent.class)) {
+            MinecraftForge.EVENT_BUS.post(new LivingEvent.LivingJumpEvent(entity));
+        }
     }
 
     public static ItemEntity onPlayerTossEvent(PlayerEntity player, ItemStack item) {
@@ -53,4 +53,11 @@ public class ForgeInternalHandler {
     public void onDimensionSave(WorldEvent.Save event) {
         ForgeChunkManager.saveWorld(event.world);
     }
+
+    @ForgeSubscribe(
+            priority = EventPriority.HIGHEST
+    )
+    public void onDimensionUnload(WorldEvent.Unload event) {
+        ForgeChunkManager.unloadWorld(event.world);
+    }
 }
@@ -0,0 +1,54 @@
+package net.minecraftforge.common;
+
+import net.minecraft.command.AbstractCommand;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.IncorrectUsageException;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A server command printing one of Forge's stats dumps, like forgesaves. Only ops and the console
+ * may use it, and it goes through CommandEvent like any other registered command. It takes at
+ * most one argument, one of the options it was created with.
+ */
+public abstract class StatsCommand extends AbstractCommand {
+    private final String name;
+    private final List<String> options;
+
+    protected StatsCommand(String name, String... options) {
+        this.name = name;
+        this.options = Arrays.asList(options);
+    }
+
+    public String getCommandName() {
+        return this.name;
+    }
+
+    public String getUsageTranslationKey(CommandSource sender) {
+        StringBuilder usage = new StringBuilder("/").append(this.name);
+        if (!this.options.isEmpty()) {
+            usage.append(" [");
+            for (int i = 0; i < this.options.size(); i++) {
+                usage.append(i == 0 ? "" : "|").append(this.options.get(i));
+            }
+            usage.append("]");
+        }
+        return usage.toString();
+    }
+
+    public void execute(CommandSource sender, String[] args) {
+        if (args.length > 1 || args.length == 1 && !this.options.contains(args[0])) {
+            throw new IncorrectUsageException(this.getUsageTranslationKey(sender));
+        }
+
+        for (String line : this.dump(args.length == 1 ? args[0] : null)) {
+            sender.method_3331(line);
+        }
+    }
+
+    /**
+     * Returns the lines to print for the given option, null when none was given.
+     */
+    protected abstract List<String> dump(String option);
+}
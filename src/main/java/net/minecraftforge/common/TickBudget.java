@@ -0,0 +1,59 @@
+package net.minecraftforge.common;
+
+import cpw.mods.fml.common.FMLLog;
+
+/**
+ * The parts of a server world tick that can be given a time budget, in milliseconds per
+ * world tick, with -Dforge.tickBudget.&lt;name&gt;=&lt;ms&gt;. A negative budget means unlimited.
+ * Work left over when a budget runs out is carried to the next tick, where it goes first.
+ */
+public enum TickBudget {
+    CHUNK_UPDATES("chunkUpdates", "chunk updates", 4.0D),
+    RANDOM_TICKS("randomTicks", "random ticks", -1.0D),
+    SCHEDULED_TICKS("scheduledTicks", "scheduled ticks", -1.0D),
+    TILE_ENTITIES("tileEntities", "tile entities", -1.0D),
+    ENTITIES("entities", "entities", -1.0D),
+    CHUNK_LOADS("chunkLoads", "chunk loads", -1.0D);
+
+    private final String displayName;
+    private final long nanos;
+
+    private TickBudget(String property, String displayName, double defaultMillis) {
+        this.displayName = displayName;
+        this.nanos = (long)(parseMillis(property, defaultMillis) * 1000000.0D);
+    }
+
+    private static double parseMillis(String property, double defaultMillis) {
+        String value = System.getProperty("forge.tickBudget." + property);
+        if (value == null) {
+            return defaultMillis;
+        }
+
+        try {
+            double millis = Double.parseDouble(value.trim());
+            if (!Double.isNaN(millis) && !Double.isInfinite(millis)) {
+                return millis;
+            }
+        } catch (NumberFormatException e) {
+            // Warned about below, like a value that isn't a finite number
+        }
+
+        FMLLog.warning("Invalid tick budget %s for %s, using %s", value, property, defaultMillis);
+        return defaultMillis;
+    }
+
+    public String getDisplayName() {
+        return this.displayName;
+    }
+
+    public boolean isLimited() {
+        return this.nanos >= 0;
+    }
+
+    /**
+     * Whether the time spent on this part during the current tick uses up its budget.
+     */
+    public boolean isSpent(long spentNanos) {
+        return this.nanos >= 0 && spentNanos >= this.nanos;
+    }
+}
@@ -4,18 +4,25 @@ import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Type;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ASMEventHandler implements IEventListener {
     private static int IDs = 0;
     private static final String HANDLER_DESC = Type.getInternalName(IEventListener.class);
     private static final String HANDLER_FUNC_DESC = Type.getMethodDescriptor(IEventListener.class.getDeclaredMethods()[0]);
     private static final ASMEventHandler.ASMClassLoader LOADER = new ASMEventHandler.ASMClassLoader();
+    /**
+     * One generated wrapper per handler method; every subscriber instance of that
+     * method shares it and is bound through the wrapper's instance field.
+     */
+    private static final ConcurrentHashMap<Method, Constructor<?>> WRAPPERS = new ConcurrentHashMap<Method, Constructor<?>>();
     private final IEventListener handler;
     private final ForgeSubscribe subInfo;
 
     public ASMEventHandler(Object target, Method method) throws Exception {
-        this.handler = (IEventListener)this.createWrapper(method).getConstructor(Object.class).newInstance(target);
+        this.handler = (IEventListener)getWrapperConstructor(method).newInstance(target);
         this.subInfo = (ForgeSubscribe)method.getAnnotation(ForgeSubscribe.class);
     }
 
@@ -30,9 +37,36 @@ public class ASMEventHandler implements IEventListener {
         return this.subInfo.priority();
     }
 
+    public boolean receiveCanceled() {
+        return this.subInfo.receiveCanceled();
+    }
+
+    private static Constructor<?> getWrapperConstructor(Method callback) throws NoSuchMethodException {
+        Constructor<?> ctr = WRAPPERS.get(callback);
+        if (ctr == null) {
+            synchronized (WRAPPERS) {
+                ctr = WRAPPERS.get(callback);
+                if (ctr == null) {
+                    ctr = generateWrapper(callback).getConstructor(Object.class);
+                    WRAPPERS.put(callback, ctr);
+                }
+            }
+        }
+
+        return ctr;
+    }
+
     public Class<?> createWrapper(Method callback) {
+        try {
+            return getWrapperConstructor(callback).getDeclaringClass();
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Class<?> generateWrapper(Method callback) {
         ClassWriter cw = new ClassWriter(0);
-        String name = this.getUniqueName(callback);
+        String name = getUniqueName(callback);
         String desc = name.replace('.', '/');
         String instType = Type.getInternalName(callback.getDeclaringClass());
         String eventType = Type.getInternalName(callback.getParameterTypes()[0]);
@@ -64,8 +98,8 @@ public class ASMEventHandler implements IEventListener {
         return LOADER.define(name, cw.toByteArray());
     }
 
-    private String getUniqueName(Method callback) {
-        return String.format("%s_%d_%s_%s_%s", this.getClass().getName(), IDs++, callback.getDeclaringClass().getSimpleName(), callback.getName(), callback.getParameterTypes()[0].getSimpleName());
+    private static String getUniqueName(Method callback) {
+        return String.format("%s_%d_%s_%s_%s", ASMEventHandler.class.getName(), IDs++, callback.getDeclaringClass().getSimpleName(), callback.getName(), callback.getParameterTypes()[0].getSimpleName());
     }
 
     private static class ASMClassLoader extends ClassLoader {
@@ -4,20 +4,22 @@ public class Event {
     private boolean isCanceled = false;
     private final boolean isCancelable;
     private static ListenerList listeners = new ListenerList();
-
-    public Event() {
-        this.setup();
-        Class cls = this.getClass();
-
-        boolean found;
-        for(found = false; cls != Event.class; cls = cls.getSuperclass()) {
-            if (cls.isAnnotationPresent(Cancelable.class)) {
-                found = true;
-                break;
+    private static final ClassValue<Boolean> CANCELABLE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> cls = type; cls != null && cls != Event.class; cls = cls.getSuperclass()) {
+                if (cls.isAnnotationPresent(Cancelable.class)) {
+                    return Boolean.TRUE;
+                }
             }
+
+            return Boolean.FALSE;
         }
+    };
 
-        this.isCancelable = found;
+    public Event() {
+        this.setup();
+        this.isCancelable = CANCELABLE.get(this.getClass());
     }
 
     public boolean isCancelable() {
@@ -3,7 +3,9 @@ package net.minecraftforge.event;
 import com.google.common.reflect.TypeToken;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Set;
@@ -11,8 +13,23 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class EventBus {
     private static int maxID = 0;
+    private static final ClassValue<Field> LISTENER_LIST_FIELDS = new ClassValue<Field>() {
+        @Override
+        protected Field computeValue(Class<?> type) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) && field.getType() == ListenerList.class) {
+                    field.setAccessible(true);
+                    return field;
+                }
+            }
+
+            return null;
+        }
+    };
     private ConcurrentHashMap<Object, ArrayList<IEventListener>> listeners = new ConcurrentHashMap();
     private final int busID;
+    // hasListeners answers by event type, thrown away whenever any listener list changes
+    private volatile EventBus.ListenerCache listenerCache = new EventBus.ListenerCache(-1);
 
     public EventBus() {
         this.busID = maxID++;
@@ -63,15 +80,21 @@ public class EventBus {
             Constructor<?> ctr = eventType.getConstructor();
             ctr.setAccessible(true);
             Event event = (Event)ctr.newInstance();
-            ASMEventHandler listener = new ASMEventHandler(target, method);
-            event.getListenerList().register(this.busID, listener.getPriority(), listener);
+            ASMEventHandler handler = new ASMEventHandler(target, method);
+            IEventListener listener = EventProfiler.isEnabled() ? EventProfiler.wrap(eventType, target, handler) : handler;
+            event.getListenerList().register(this.busID, handler.getPriority(), listener);
             ArrayList<IEventListener> others = (ArrayList)this.listeners.get(target);
             if (others == null) {
                 others = new ArrayList();
-                this.listeners.put(target, others);
+                ArrayList<IEventListener> existing = this.listeners.putIfAbsent(target, others);
+                if (existing != null) {
+                    others = existing;
+                }
             }
 
-            others.add(listener);
+            synchronized (others) {
+                others.add(listener);
+            }
         } catch (Exception var8) {
 //            var8.printStackTrace();
         }
@@ -80,10 +103,65 @@ public class EventBus {
 
     public void unregister(Object object) {
         ArrayList<IEventListener> list = listeners.remove(object);
+        if (list == null) {
+            return;
+        }
+
         for (IEventListener listener : list)
         {
             ListenerList.unregiterAll(busID, listener);
+            EventProfiler.remove(listener);
+        }
+    }
+
+    /**
+     * Checks whether anything on this bus would receive an event of the given type,
+     * without allocating the event. Callers on hot paths use this to skip building
+     * events nobody listens to.
+     *
+     * The check is conservative: it only answers false when posting the event
+     * would provably invoke no listener. Answers are cached per type until a
+     * listener is registered or unregistered on any bus.
+     */
+    public boolean hasListeners(Class<? extends Event> type) {
+        int generation = ListenerList.getGeneration();
+        EventBus.ListenerCache cache = this.listenerCache;
+        if (cache.generation != generation) {
+            cache = new EventBus.ListenerCache(generation);
+            this.listenerCache = cache;
+        }
+
+        // Computed after reading the generation, so a change made meanwhile only leaves it in a cache already stale
+        Boolean known = cache.answers.get(type);
+        if (known == null) {
+            known = this.findListeners(type);
+            cache.answers.put(type, known);
         }
+        return known;
+    }
+
+    private boolean findListeners(Class<?> type) {
+        for (Class<?> cls = type; cls != null; cls = cls.getSuperclass()) {
+            Field field = LISTENER_LIST_FIELDS.get(cls);
+            if (field == null) {
+                continue;
+            }
+
+            ListenerList list;
+            try {
+                list = (ListenerList) field.get(null);
+            } catch (IllegalAccessException e) {
+                return true;
+            }
+
+            // The list is only created once an instance of the type has been built,
+            // which register() always does, so fall back to the parent's list until then.
+            if (list != null) {
+                return list.hasListeners(this.busID);
+            }
+        }
+
+        return true;
     }
 
     public boolean post(Event event) {
@@ -96,4 +174,13 @@ public class EventBus {
         }
         return event.isCancelable() && event.isCanceled();
     }
+
+    private static class ListenerCache {
+        private final int generation;
+        private final ConcurrentHashMap<Class<?>, Boolean> answers = new ConcurrentHashMap<Class<?>, Boolean>();
+
+        private ListenerCache(int generation) {
+            this.generation = generation;
+        }
+    }
 }
@@ -0,0 +1,184 @@
+package net.minecraftforge.event;
+
+import cpw.mods.fml.common.FMLLog;
+import cpw.mods.fml.common.Loader;
+import cpw.mods.fml.common.ModContainer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Optional per-handler timing for {@link EventBus} dispatch, enabled with
+ * -Dforge.profileEvents=true. Handlers are only wrapped when profiling is enabled
+ * at registration time, so a disabled profiler adds nothing to post().
+ */
+public class EventProfiler {
+    public static final String COMMAND_NAME = "forgeevents";
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("forge.profileEvents", "false"));
+    private static final long LOG_INTERVAL = Long.parseLong(System.getProperty("forge.profileEvents.interval", "300")) * 1000000000L;
+    private static final CopyOnWriteArrayList<Stats> stats = new CopyOnWriteArrayList<Stats>();
+    private static volatile long nextLog = System.nanoTime() + LOG_INTERVAL;
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    static IEventListener wrap(Class<?> eventType, Object target, ASMEventHandler handler) {
+        Stats stat = new Stats(eventType, getOwner(target), handler.getPriority());
+        stats.add(stat);
+        return new ProfiledListener(handler, handler.receiveCanceled(), stat);
+    }
+
+    private static String getOwner(Object target) {
+        try {
+            ModContainer mod = Loader.instance().activeModContainer();
+            if (mod != null) {
+                return mod.getModId();
+            }
+        } catch (Throwable e) {
+            // Registered before the loader is up, fall back to the handler class
+        }
+
+        return target.getClass().getName();
+    }
+
+    static void tick() {
+        long now = System.nanoTime();
+        if (now - nextLog >= 0) {
+            nextLog = now + LOG_INTERVAL;
+            List<String> lines = dump(5);
+            for (String line : lines) {
+                FMLLog.info("[EventProfiler] %s", line);
+            }
+        }
+    }
+
+    /**
+     * Formats the handlers with the highest total time, most expensive first.
+     *
+     * @param limit The maximum number of handlers to report, or -1 for all of them
+     */
+    public static List<String> dump(int limit) {
+        // Handlers keep recording while this runs, so sort copies that can't change under the sort
+        List<Snapshot> sorted = new ArrayList<Snapshot>(stats.size());
+        for (Stats stat : stats) {
+            Snapshot snapshot = stat.snapshot();
+            if (snapshot != null) {
+                sorted.add(snapshot);
+            }
+        }
+
+        Collections.sort(sorted, new Comparator<Snapshot>() {
+            public int compare(Snapshot a, Snapshot b) {
+                return a.totalNanos < b.totalNanos ? 1 : a.totalNanos > b.totalNanos ? -1 : 0;
+            }
+        });
+
+        List<String> lines = new ArrayList<String>();
+        for (Snapshot snapshot : sorted) {
+            if (limit >= 0 && lines.size() >= limit) {
+                break;
+            }
+            lines.add(snapshot.line);
+        }
+        return lines;
+    }
+
+    public static void reset() {
+        for (Stats stat : stats) {
+            stat.reset();
+        }
+    }
+
+    static void remove(IEventListener listener) {
+        if (listener instanceof ProfiledListener) {
+            stats.remove(((ProfiledListener)listener).stats);
+        }
+    }
+
+    private static class Stats {
+        private final Class<?> eventType;
+        private final String owner;
+        private final EventPriority priority;
+        private long calls;
+        private long canceled;
+        private long totalNanos;
+        private long maxNanos;
+
+        private Stats(Class<?> eventType, String owner, EventPriority priority) {
+            this.eventType = eventType;
+            this.owner = owner;
+            this.priority = priority;
+        }
+
+        private synchronized void record(long nanos, boolean cancel) {
+            ++this.calls;
+            this.totalNanos += nanos;
+            if (nanos > this.maxNanos) {
+                this.maxNanos = nanos;
+            }
+            if (cancel) {
+                ++this.canceled;
+            }
+        }
+
+        // Null if the handler hasn't been called since the last reset
+        private synchronized Snapshot snapshot() {
+            return this.calls == 0 ? null : new Snapshot(this.totalNanos, this.toString());
+        }
+
+        private synchronized void reset() {
+            this.calls = 0;
+            this.canceled = 0;
+            this.totalNanos = 0;
+            this.maxNanos = 0;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%s %s/%s: %d calls, %.3f ms total, %.3f ms max, %.1f%% canceled",
+                    this.eventType.getSimpleName(), this.owner, this.priority, this.calls,
+                    this.totalNanos / 1000000.0D, this.maxNanos / 1000000.0D,
+                    this.calls == 0 ? 0.0D : this.canceled * 100.0D / this.calls);
+        }
+    }
+
+    private static class Snapshot {
+        private final long totalNanos;
+        private final String line;
+
+        private Snapshot(long totalNanos, String line) {
+            this.totalNanos = totalNanos;
+            this.line = line;
+        }
+    }
+
+    private static class ProfiledListener implements IEventListener {
+        private final IEventListener handler;
+        private final boolean receiveCanceled;
+        private final Stats stats;
+
+        private ProfiledListener(IEventListener handler, boolean receiveCanceled, Stats stats) {
+            this.handler = handler;
+            this.receiveCanceled = receiveCanceled;
+            this.stats = stats;
+        }
+
+        public void invoke(Event event) {
+            boolean wasCanceled = event.isCanceled();
+            if (wasCanceled && !this.receiveCanceled) {
+                // Skipped by the handler, so not a call worth counting
+                return;
+            }
+
+            long start = System.nanoTime();
+            this.handler.invoke(event);
+            long time = System.nanoTime() - start;
+            this.stats.record(time, !wasCanceled && event.isCanceled());
+            tick();
+        }
+    }
+}
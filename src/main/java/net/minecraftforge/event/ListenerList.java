@@ -1,70 +1,93 @@
 package net.minecraftforge.event;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Iterator;
 
 public class ListenerList {
+    private static final Object LOCK = new Object();
+    private static final IEventListener[] NO_LISTENERS = new IEventListener[0];
     private static ArrayList<ListenerList> allLists = new ArrayList();
     private static int maxSize = 0;
+    /**
+     * Bumped on every change to any list. A ListenerListInst whose cache was built
+     * against an older generation rebuilds it, which covers changes to its parents too.
+     */
+    private static volatile int generation = 0;
     private ListenerList parent;
-    private ListenerList.ListenerListInst[] lists = new ListenerList.ListenerListInst[0];
+    private volatile ListenerList.ListenerListInst[] lists = new ListenerList.ListenerListInst[0];
 
     public ListenerList() {
-        allLists.add(this);
-        this.resizeLists(maxSize);
+        synchronized (LOCK) {
+            allLists.add(this);
+            this.resizeLists(maxSize);
+        }
     }
 
     public ListenerList(ListenerList parent) {
-        allLists.add(this);
-        this.parent = parent;
-        this.resizeLists(maxSize);
+        synchronized (LOCK) {
+            allLists.add(this);
+            this.parent = parent;
+            this.resizeLists(maxSize);
+        }
     }
 
     public static void resize(int max) {
-        if (max <= maxSize)
-        {
-            return;
-        }
-        for (ListenerList list : allLists)
-        {
-            list.resizeLists(max);
+        synchronized (LOCK) {
+            if (max <= maxSize)
+            {
+                return;
+            }
+            for (ListenerList list : allLists)
+            {
+                list.resizeLists(max);
+            }
+            maxSize = max;
         }
-        maxSize = max;
     }
 
     public void resizeLists(int max) {
-        if (this.parent != null) {
-            this.parent.resizeLists(max);
-        }
+        synchronized (LOCK) {
+            if (this.parent != null) {
+                this.parent.resizeLists(max);
+            }
 
-        if (this.lists.length < max) {
-            ListenerList.ListenerListInst[] newList = new ListenerList.ListenerListInst[max];
+            if (this.lists.length < max) {
+                ListenerList.ListenerListInst[] newList = new ListenerList.ListenerListInst[max];
 
-            int x;
-            for(x = 0; x < this.lists.length; ++x) {
-                newList[x] = this.lists[x];
-            }
+                int x;
+                for(x = 0; x < this.lists.length; ++x) {
+                    newList[x] = this.lists[x];
+                }
 
-            for(; x < max; ++x) {
-                if (this.parent != null) {
-                    newList[x] = new ListenerList.ListenerListInst(this.parent.getInstance(x));
-                } else {
-                    newList[x] = new ListenerList.ListenerListInst();
+                for(; x < max; ++x) {
+                    if (this.parent != null) {
+                        newList[x] = new ListenerList.ListenerListInst(this.parent.getInstance(x));
+                    } else {
+                        newList[x] = new ListenerList.ListenerListInst();
+                    }
                 }
-            }
 
-            this.lists = newList;
+                this.lists = newList;
+            }
         }
     }
 
     public static void clearBusID(int id) {
-        for (ListenerList list : allLists)
-        {
-            list.lists[id].dispose();
+        synchronized (LOCK) {
+            for (ListenerList list : allLists)
+            {
+                list.lists[id].dispose();
+            }
+            ++generation;
         }
     }
 
+    /**
+     * The current generation; anything derived from the lists stays valid while it is unchanged.
+     */
+    static int getGeneration() {
+        return generation;
+    }
+
     protected ListenerList.ListenerListInst getInstance(int id) {
         return this.lists[id];
     }
@@ -73,24 +96,40 @@ public class ListenerList {
         return this.lists[id].getListeners();
     }
 
+    public boolean hasListeners(int id) {
+        return this.lists[id].getListeners().length > 0;
+    }
+
     public void register(int id, EventPriority priority, IEventListener listener) {
-        this.lists[id].register(priority, listener);
+        synchronized (LOCK) {
+            this.lists[id].register(priority, listener);
+            ++generation;
+        }
     }
 
     public void unregister(int id, IEventListener listener) {
-        this.lists[id].unregister(listener);
+        synchronized (LOCK) {
+            this.lists[id].unregister(listener);
+            ++generation;
+        }
     }
 
     public static void unregiterAll(int id, IEventListener listener) {
-        for (ListenerList list : allLists)
-        {
-            list.unregister(id, listener);
+        synchronized (LOCK) {
+            for (ListenerList list : allLists)
+            {
+                list.unregister(id, listener);
+            }
         }
     }
 
+    /**
+     * Listeners for one bus. Writers mutate the priority lists under LOCK; readers only
+     * see the published array, which is replaced wholesale and never modified in place.
+     */
     private class ListenerListInst {
-        private boolean rebuild;
-        private IEventListener[] listeners;
+        private volatile IEventListener[] listeners = NO_LISTENERS;
+        private volatile int builtGeneration = -1;
         private ArrayList<ArrayList<IEventListener>> priorities;
         private ListenerList.ListenerListInst parent;
 
@@ -109,9 +148,7 @@ public class ListenerList {
             {
                 listeners.clear();
             }
-            priorities.clear();
             parent = null;
-            listeners = null;
         }
 
         private ListenerListInst(ListenerList.ListenerListInst parent) {
@@ -120,7 +157,7 @@ public class ListenerList {
         }
 
         public ArrayList<IEventListener> getListeners(EventPriority priority) {
-            ArrayList<IEventListener> ret = new ArrayList((Collection)this.priorities.get(priority.ordinal()));
+            ArrayList<IEventListener> ret = new ArrayList<IEventListener>(this.priorities.get(priority.ordinal()));
             if (this.parent != null) {
                 ret.addAll(this.parent.getListeners(priority));
             }
@@ -129,30 +166,32 @@ public class ListenerList {
         }
 
         public IEventListener[] getListeners() {
-            if (this.shouldRebuild()) {
+            if (this.builtGeneration != generation) {
                 this.buildCache();
             }
 
             return this.listeners;
         }
 
-        protected boolean shouldRebuild() {
-            return this.rebuild || this.parent != null && this.parent.shouldRebuild();
-        }
-
         private void buildCache() {
-            ArrayList<IEventListener> ret = new ArrayList<IEventListener>();
-            for (EventPriority value : EventPriority.values())
-            {
-                ret.addAll(getListeners(value));
+            synchronized (LOCK) {
+                int current = generation;
+                if (this.builtGeneration == current) {
+                    return;
+                }
+
+                ArrayList<IEventListener> ret = new ArrayList<IEventListener>();
+                for (EventPriority value : EventPriority.values())
+                {
+                    ret.addAll(getListeners(value));
+                }
+                listeners = ret.isEmpty() ? NO_LISTENERS : ret.toArray(new IEventListener[ret.size()]);
+                builtGeneration = current;
             }
-            listeners = ret.toArray(new IEventListener[0]);
-            rebuild = false;
         }
 
         public void register(EventPriority priority, IEventListener listener) {
             priorities.get(priority.ordinal()).add(listener);
-            rebuild = true;
         }
 
         public void unregister(IEventListener listener) {
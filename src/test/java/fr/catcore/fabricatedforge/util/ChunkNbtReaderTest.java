@@ -0,0 +1,124 @@
+package fr.catcore.fabricatedforge.util;
+
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.world.chunk.ChunkSection;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ChunkNbtReaderTest {
+    private final ChunkNbtReader.Build[] open = new ChunkNbtReader.Build[2];
+
+    @After
+    public void endBuilds() {
+        for (int i = this.open.length - 1; i >= 0; i--) {
+            if (this.open[i] != null) {
+                ChunkNbtReader.endBuild(this.open[i]);
+            }
+        }
+    }
+
+    @Test
+    public void streamedSectionsMatchTheWrittenArrays() throws IOException {
+        Random random = new Random(24L);
+        byte[][] blocks = new byte[16][];
+        byte[][] data = new byte[16][];
+        NbtList sections = new NbtList();
+        for (int y : new int[] {0, 3, 15}) {
+            blocks[y] = bytes(random, 4096);
+            data[y] = bytes(random, 2048);
+            NbtCompound section = new NbtCompound();
+            // Arrays ahead of Y go through the reader's scratch buffers, the others straight into the section
+            section.putByteArray("Blocks", blocks[y]);
+            section.putByte("Y", (byte)y);
+            section.putByteArray("Data", data[y]);
+            section.putByteArray("SkyLight", bytes(random, 2048));
+            section.putByteArray("BlockLight", bytes(random, 2048));
+            sections.method_1217(section);
+        }
+
+        NbtCompound tile = new NbtCompound();
+        tile.putString("id", "Chest");
+        tile.putInt("x", 5);
+        NbtList tiles = new NbtList();
+        tiles.method_1217(tile);
+
+        NbtCompound level = new NbtCompound();
+        level.putInt("xPos", 7);
+        level.putInt("zPos", -3);
+        level.put("Sections", sections);
+        level.put("TileEntities", tiles);
+        NbtCompound root = new NbtCompound();
+        root.put("Level", level);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NbtIo.method_1345(root, new DataOutputStream(out));
+        ChunkNbtReader.ChunkData read = ChunkNbtReader.read(new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+
+        ChunkSection[] streamed = read.getSections();
+        assertNotNull(streamed);
+        for (int y = 0; y < 16; y++) {
+            if (blocks[y] == null) {
+                assertNull(streamed[y]);
+            } else {
+                assertArrayEquals(blocks[y], streamed[y].getBlocks());
+                assertArrayEquals(data[y], streamed[y].getBlockData().bytes);
+            }
+        }
+
+        NbtCompound readLevel = read.getRoot().getCompound("Level");
+        assertFalse(readLevel.contains("Sections"));
+        assertEquals(7, readLevel.getInt("xPos"));
+        assertEquals(-3, readLevel.getInt("zPos"));
+        NbtList readTiles = readLevel.getList("TileEntities");
+        assertEquals(1, readTiles.size());
+        assertEquals("Chest", ((NbtCompound)readTiles.method_1218(0)).getString("id"));
+        assertEquals(5, ((NbtCompound)readTiles.method_1218(0)).getInt("x"));
+
+        assertArrayEquals(blocks[3], ((NbtCompound)read.materialize().getCompound("Level").getList("Sections").method_1218(1)).getByteArray("Blocks"));
+    }
+
+    @Test
+    public void sectionsOnlyGoToTheChunkBeingBuilt() {
+        ChunkSection[] sections = new ChunkSection[16];
+        this.open[0] = ChunkNbtReader.beginBuild(null, 7, -3, sections);
+
+        assertSame(sections, ChunkNbtReader.getBuildingSections(null, 7, -3));
+        assertNull(ChunkNbtReader.getBuildingSections(null, 7, 3));
+        assertNull(ChunkNbtReader.getBuildingSections(null, -7, -3));
+    }
+
+    @Test
+    public void nestedBuildHidesAndRestoresTheOuterOne() {
+        ChunkSection[] outer = new ChunkSection[16];
+        this.open[0] = ChunkNbtReader.beginBuild(null, 0, 0, outer);
+
+        // A nested load of a chunk whose sections were not streamed
+        this.open[1] = ChunkNbtReader.beginBuild(null, 1, 0, null);
+        assertNull(ChunkNbtReader.getBuildingSections(null, 0, 0));
+        assertNull(ChunkNbtReader.getBuildingSections(null, 1, 0));
+        ChunkNbtReader.endBuild(this.open[1]);
+        this.open[1] = null;
+
+        assertSame(outer, ChunkNbtReader.getBuildingSections(null, 0, 0));
+        ChunkNbtReader.endBuild(this.open[0]);
+        this.open[0] = null;
+        assertNull(ChunkNbtReader.getBuildingSections(null, 0, 0));
+    }
+
+    private static byte[] bytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
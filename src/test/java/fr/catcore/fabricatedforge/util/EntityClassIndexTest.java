@@ -0,0 +1,125 @@
+package fr.catcore.fabricatedforge.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks every filtered query of the index against a plain scan of the section's list, while
+ * entities come and go through the index and behind its back.
+ */
+public class EntityClassIndexTest {
+    private static final Class<?>[] QUERIES = new Class<?>[] {
+            Object.class, Mob.class, Monster.class, Zombie.class, Creeper.class, Animal.class, Cow.class,
+            Pig.class, Item.class, Burning.class, Runnable.class
+    };
+
+    @Test
+    public void queriesMatchAFullScan() {
+        Random random = new Random(11L);
+        EntityClassIndex.Section section = new EntityClassIndex.Section();
+        EntityClassIndex<Object> index = new EntityClassIndex<Object>();
+
+        for (int step = 0; step < 20000; step++) {
+            int op = random.nextInt(20);
+            if (op < 8 || section.isEmpty()) {
+                Object entity = newEntity(random);
+                section.add(entity);
+                index.add(entity, section);
+            } else if (op < 15) {
+                Object entity = section.get(random.nextInt(section.size()));
+                assertTrue(section.remove(entity));
+                index.remove(entity, section);
+            } else if (op == 15) {
+                // Changed without telling the index, like a mod editing the list directly
+                if (random.nextBoolean()) {
+                    section.add(newEntity(random));
+                } else {
+                    section.remove(random.nextInt(section.size()));
+                }
+            } else {
+                Class<?> type = QUERIES[random.nextInt(QUERIES.length)];
+                assertEquals("step " + step + ", " + type.getSimpleName(), scan(type, section), new ArrayList<Object>(index.get(type, section)));
+            }
+        }
+
+        for (Class<?> type : QUERIES) {
+            assertEquals(type.getSimpleName(), scan(type, section), new ArrayList<Object>(index.get(type, section)));
+        }
+    }
+
+    @Test
+    public void listThatDoesNotCountChangesIsScanned() {
+        List<Object> list = new ArrayList<Object>();
+        EntityClassIndex<Object> index = new EntityClassIndex<Object>();
+        Cow cow = new Cow();
+        list.add(cow);
+        index.add(cow, list);
+        assertEquals(scan(Animal.class, list), new ArrayList<Object>(index.get(Animal.class, list)));
+
+        Pig pig = new Pig();
+        list.add(pig);
+        assertEquals(scan(Animal.class, list), new ArrayList<Object>(index.get(Animal.class, list)));
+    }
+
+    private static Object newEntity(Random random) {
+        switch (random.nextInt(6)) {
+            case 0:
+                return new Zombie();
+            case 1:
+                return new Creeper();
+            case 2:
+                return new Cow();
+            case 3:
+                return new Pig();
+            case 4:
+                return new BurningZombie();
+            default:
+                return new Item();
+        }
+    }
+
+    private static List<Object> scan(Class<?> type, List<?> section) {
+        List<Object> found = new ArrayList<Object>();
+        for (Object entity : section) {
+            if (type.isInstance(entity)) {
+                found.add(entity);
+            }
+        }
+        return found;
+    }
+
+    private static class Mob {
+    }
+
+    private static class Monster extends Mob {
+    }
+
+    private static class Zombie extends Monster {
+    }
+
+    private static class BurningZombie extends Zombie implements Burning {
+    }
+
+    private static class Creeper extends Monster {
+    }
+
+    private static class Animal extends Mob {
+    }
+
+    private static class Cow extends Animal {
+    }
+
+    private static class Pig extends Animal implements Burning {
+    }
+
+    private static class Item {
+    }
+
+    private interface Burning {
+    }
+}
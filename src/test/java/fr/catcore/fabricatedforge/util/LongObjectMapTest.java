@@ -0,0 +1,77 @@
+package fr.catcore.fabricatedforge.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LongObjectMapTest {
+    @Test
+    public void randomPutsAndRemovesMatchAHashMap() {
+        Random random = new Random(7L);
+        LongObjectMap<String> map = new LongObjectMap<String>();
+        Map<Long, String> model = new HashMap<Long, String>();
+
+        for (int step = 0; step < 200000; step++) {
+            // Packed chunk coordinates around the origin, so keys repeat and probe runs get long
+            long key = (long)(random.nextInt(64) - 32) << 32 | random.nextInt(64) - 32 & 0xFFFFFFFFL;
+            if (random.nextInt(3) == 0) {
+                assertEquals(model.remove(key), map.remove(key));
+            } else {
+                String value = Integer.toString(step);
+                assertEquals(model.put(key, value), map.put(key, value));
+            }
+            assertEquals(model.size(), map.size());
+
+            if (step % 5000 == 0) {
+                assertSameContents(model, map);
+            }
+        }
+        assertSameContents(model, map);
+    }
+
+    @Test
+    public void removingEveryOtherKeyKeepsTheRestReachable() {
+        LongObjectMap<Long> map = new LongObjectMap<Long>(4);
+        Map<Long, Long> model = new HashMap<Long, Long>();
+        for (long key = 0; key < 5000; key++) {
+            map.put(key * 31, key);
+            model.put(key * 31, key);
+        }
+
+        for (long key = 0; key < 5000; key += 2) {
+            assertEquals(Long.valueOf(key), map.remove(key * 31));
+            model.remove(key * 31);
+            assertNull(map.remove(key * 31));
+        }
+        assertSameContents(model, map);
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(31L));
+        assertFalse(map.containsKey(31L));
+    }
+
+    private static <V> void assertSameContents(Map<Long, V> model, LongObjectMap<V> map) {
+        assertEquals(model.size(), map.size());
+        for (Map.Entry<Long, V> entry : model.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+            assertTrue(map.containsKey(entry.getKey()));
+        }
+
+        long[] keys = map.keys(new long[map.size()]);
+        Arrays.sort(keys);
+        List<Long> expected = new ArrayList<Long>(model.keySet());
+        Collections.sort(expected);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(expected.get(i).longValue(), keys[i]);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package fr.catcore.fabricatedforge.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the sector allocator against an in-memory model of the region: random batches of
+ * growing, shrinking and same-size rewrites, with the file reopened now and then.
+ */
+public class MappedRegionFileTest {
+    private static final int SECTOR_SIZE = 4096;
+    // The largest payload that fits the 255 sectors a location entry can hold, after the length and version
+    private static final int MAX_PAYLOAD = 255 * SECTOR_SIZE - 5;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void randomBatchesMatchTheModel() throws IOException {
+        File file = this.folder.newFile("r.0.0.mca");
+        Random random = new Random(22L);
+        Map<Integer, byte[]> model = new HashMap<Integer, byte[]>();
+        List<Integer> indices = new ArrayList<Integer>();
+        for (int i = 0; i < 1024; i++) {
+            indices.add(i);
+        }
+
+        MappedRegionFile region = new MappedRegionFile(file);
+        try {
+            for (int batch = 0; batch < 400; batch++) {
+                // Distinct chunks per batch, like one flush of the save queue
+                Collections.shuffle(indices, random);
+                List<MappedRegionFile.Write> writes = new ArrayList<MappedRegionFile.Write>();
+                for (int index : indices.subList(0, 1 + random.nextInt(48))) {
+                    byte[] data = payload(random, randomLength(random));
+                    writes.add(new MappedRegionFile.Write(index & 31, index >> 5, (byte)(data.length % 3 + 1), data, data.length));
+                    model.put(index, data);
+                }
+                region.write(writes);
+                // The header is mapped, so the file shows the new locations before it is closed
+                assertSectorRunsDisjoint(file);
+
+                if (random.nextInt(10) == 0) {
+                    region.close();
+                    region = new MappedRegionFile(file);
+                }
+                assertMatches(region, model);
+            }
+
+            region.close();
+            assertSectorRunsDisjoint(file);
+            region = new MappedRegionFile(file);
+            assertMatches(region, model);
+        } finally {
+            region.close();
+        }
+    }
+
+    @Test
+    public void tooLargeChunkKeepsTheOldPayload() throws IOException {
+        File file = this.folder.newFile("r.0.0.mca");
+        Random random = new Random(2L);
+        byte[] small = payload(random, 3000);
+        byte[] huge = payload(random, MAX_PAYLOAD + 1);
+
+        MappedRegionFile region = new MappedRegionFile(file);
+        try {
+            region.write(Collections.singletonList(new MappedRegionFile.Write(3, 4, (byte)2, small, small.length)));
+            region.write(Collections.singletonList(new MappedRegionFile.Write(3, 4, (byte)2, huge, huge.length)));
+            assertArrayEquals(small, region.read(3, 4).data);
+        } finally {
+            region.close();
+        }
+    }
+
+    private static int randomLength(Random random) {
+        switch (random.nextInt(8)) {
+            case 0:
+                return 1 + random.nextInt(SECTOR_SIZE * 40);
+            case 1:
+                // Right around a sector boundary, counting the 5 byte prefix
+                return SECTOR_SIZE * (1 + random.nextInt(4)) - 5 + random.nextInt(3) - 1;
+            default:
+                return 1 + random.nextInt(SECTOR_SIZE * 3);
+        }
+    }
+
+    private static byte[] payload(Random random, int length) {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+
+    private static void assertMatches(MappedRegionFile region, Map<Integer, byte[]> model) throws IOException {
+        for (int index = 0; index < 1024; index++) {
+            MappedRegionFile.Payload payload = region.read(index & 31, index >> 5);
+            byte[] expected = model.get(index);
+            if (expected == null) {
+                assertNull("chunk " + index, payload);
+            } else {
+                assertNotNull("chunk " + index, payload);
+                assertEquals("chunk " + index, (byte)(expected.length % 3 + 1), payload.version);
+                assertTrue("chunk " + index, Arrays.equals(expected, payload.data));
+            }
+        }
+    }
+
+    // Reads the location table straight from the file, as vanilla RegionFile would
+    private static void assertSectorRunsDisjoint(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            long sectors = raf.length() / SECTOR_SIZE;
+            assertEquals(0L, raf.length() % SECTOR_SIZE);
+            int[] owner = new int[(int)sectors];
+            Arrays.fill(owner, -1);
+            for (int index = 0; index < 1024; index++) {
+                int location = raf.readInt();
+                if (location == 0) {
+                    continue;
+                }
+
+                int start = location >>> 8;
+                int count = location & 0xFF;
+                assertTrue("chunk " + index + " points into the header", start >= 2);
+                assertTrue("chunk " + index + " points past the end", start + count <= sectors);
+                for (int sector = start; sector < start + count; sector++) {
+                    assertEquals("sector " + sector + " is used by chunks " + owner[sector] + " and " + index, -1, owner[sector]);
+                    owner[sector] = index;
+                }
+            }
+        } finally {
+            raf.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package fr.catcore.fabricatedforge.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SpawnChunkSetTest {
+    @Test
+    public void refilledSetMatchesTheModel() {
+        Random random = new Random(13L);
+        SpawnChunkSet set = new SpawnChunkSet();
+
+        // Spawn passes with a varying number of players, so the set grows and is then refilled smaller
+        for (int pass = 0; pass < 200; pass++) {
+            set.clear();
+            Map<Long, Boolean> model = new HashMap<Long, Boolean>();
+            int players = 1 + random.nextInt(pass < 100 ? 12 : 3);
+            for (int player = 0; player < players; player++) {
+                int centerX = random.nextInt(80) - 40;
+                int centerZ = random.nextInt(80) - 40;
+                for (int dx = -8; dx <= 8; dx++) {
+                    for (int dz = -8; dz <= 8; dz++) {
+                        boolean edge = dx == -8 || dx == 8 || dz == -8 || dz == 8;
+                        int x = centerX + dx;
+                        int z = centerZ + dz;
+                        set.add(x, z, edge);
+                        Long key = (long)x << 32 | z & 0xFFFFFFFFL;
+                        Boolean wasEdge = model.get(key);
+                        model.put(key, wasEdge == null ? edge : wasEdge && edge);
+                    }
+                }
+            }
+
+            set.shuffle();
+            assertEquals(model.size(), set.size());
+            Map<Long, Boolean> seen = new HashMap<Long, Boolean>();
+            for (int i = 0; i < set.size(); i++) {
+                Long key = (long)set.getX(i) << 32 | set.getZ(i) & 0xFFFFFFFFL;
+                assertNull("chunk listed twice", seen.put(key, set.isEdge(i)));
+            }
+            assertEquals(model, seen);
+        }
+    }
+
+    @Test
+    public void clearDropsEveryChunk() {
+        SpawnChunkSet set = new SpawnChunkSet();
+        for (int x = 0; x < 40; x++) {
+            set.add(x, -x, true);
+        }
+
+        set.clear();
+        assertEquals(0, set.size());
+        set.add(3, -3, false);
+        set.shuffle();
+        assertEquals(1, set.size());
+        assertEquals(3, set.getX(0));
+        assertEquals(-3, set.getZ(0));
+        assertFalse(set.isEdge(0));
+    }
+}